@@ -0,0 +1,251 @@
+package bench;
+
+import model.Board;
+import model.GameMatch;
+import model.GameState;
+import model.GameStatus;
+import model.Move;
+import model.Player;
+import service.GameService;
+import service.GameServiceImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Benchmarks for the server hot paths: Board operations, makeMove,
+ * findOrCreateGame and listOpenGames at different numbers of live games and
+ * threads, GameState encoding, and a GameService round trip over a loopback
+ * RMI registry.
+ *
+ * Usage (from the repository root):
+ *   javac -d Output $(find . -name "*.java" -not -path "./bench/jmh/*")
+ *   java -cp Output bench.HotPathBench [live=0,10000,100000] [threads=1,4,16] [rmiPort=1199]
+ *
+ * The same paths under JMH (forks, warmup, Blackhole): bench/jmh, built with
+ * mvn -B -Pjmh package.
+ */
+public class HotPathBench {
+
+    // A full 3x3 game that ends in a draw, X and O alternating
+    private static final int[][] DRAW = {
+            {0, 0}, {0, 1}, {0, 2}, {1, 1}, {1, 0}, {1, 2}, {2, 1}, {2, 0}, {2, 2},
+    };
+
+    public static void main(String[] args) throws Exception {
+        // Benchmarks churn through many short games: evict them as soon as
+        // they finish and don't cap live games at the 4-digit id space,
+        // unless told otherwise on the command line
+        System.getProperties().putIfAbsent("game.ttl.finished", "0");
+        System.getProperties().putIfAbsent("game.ids", "sequence");
+
+        Map<String, String> opts = parse(args);
+        int[] liveGames = ints(opts.getOrDefault("live", "0,10000,100000"));
+        int[] threads = ints(opts.getOrDefault("threads", "1,4,16"));
+        int rmiPort = Integer.parseInt(opts.getOrDefault("rmiPort", "1199"));
+
+        Microbench.header();
+
+        boardBenchmarks();
+        encodingBenchmarks();
+
+        for (int live : liveGames) {
+            for (int t : threads) {
+                makeMoveBenchmark(live, t);
+                matchmakingBenchmark(live, t);
+                listOpenGamesBenchmark(live, t);
+            }
+        }
+
+        rmiBenchmarks(rmiPort, threads);
+
+        // Exported services keep RMI threads alive
+        System.exit(0);
+    }
+
+    // -------------------------------------------------------
+    // Board
+    // -------------------------------------------------------
+    private static void boardBenchmarks() throws Exception {
+        Board[] boards = new Board[64];
+
+        Microbench.measure("Board.place + checkWinner + isFull (3x3)", 1, 2_000_000, (t, i) -> {
+            int move = i % DRAW.length;
+            if (move == 0)
+                boards[0] = new Board();
+
+            Board b = boards[0];
+            b.place(DRAW[move][0], DRAW[move][1], move % 2 == 0 ? 'X' : 'O');
+            Character winner = b.checkWinner();
+            return winner != null ? winner : b.isFull();
+        });
+
+        Microbench.measure("Board.place + checkWinner (15x15, k=5)", 1, 2_000_000, (t, i) -> {
+            int move = i % 100;
+            if (move == 0)
+                boards[1] = new Board(15, 5);
+
+            // Scattered cells so nobody wins early
+            boards[1].place((move * 7) % 15, (move * 11 + move / 15) % 15, move % 2 == 0 ? 'X' : 'O');
+            return boards[1].checkWinner();
+        });
+    }
+
+    // -------------------------------------------------------
+    // Wire Encoding
+    // -------------------------------------------------------
+    private static void encodingBenchmarks() throws Exception {
+        GameState gs = sampleState();
+        byte[] encoded = encode(gs);
+
+        System.out.println("GameState encoded size: " + encoded.length + " bytes");
+
+        Microbench.measure("GameState encode", 1, 200_000, (t, i) -> encode(gs));
+        Microbench.measure("GameState decode", 1, 200_000, (t, i) -> decode(encoded));
+    }
+
+    // -------------------------------------------------------
+    // Service, in process
+    // -------------------------------------------------------
+    private static void makeMoveBenchmark(int live, int threads) throws Exception {
+        GameServiceImpl service = withLiveGames(live);
+        String[] gameIds = new String[threads];
+        GameMatch[][] seats = new GameMatch[threads][2];
+
+        // One op is one move; every 9th op also creates and joins a fresh game
+        Microbench.measure("makeMove live=" + live, threads, 9 * 2_000, (t, i) -> {
+            int move = i % DRAW.length;
+
+            if (move == 0) {
+                seats[t][0] = service.createMatch("x" + t, 3, 3);
+                gameIds[t] = seats[t][0].getGameId();
+                seats[t][1] = service.joinMatch(gameIds[t], "o" + t);
+            }
+
+            return service.makeMove(gameIds[t], new Move(seats[t][move % 2], DRAW[move][0], DRAW[move][1]));
+        });
+        service.close();
+    }
+
+    private static void matchmakingBenchmark(int live, int threads) throws Exception {
+        GameServiceImpl service = withLiveGames(live);
+
+        // One op is two findOrCreateGame calls, i.e. one match on average
+        Microbench.measure("findOrCreateGame pair live=" + live, threads, 2_000 / threads, (t, i) -> {
+            service.findOrCreateGame("a");
+            return service.findOrCreateGame("b");
+        });
+        service.close();
+    }
+
+    private static void listOpenGamesBenchmark(int live, int threads) throws Exception {
+        GameServiceImpl service = new GameServiceImpl();
+
+        // Here the live games are all open, which is what listOpenGames returns
+        for (int i = 0; i < live; i++)
+            service.createGame("p" + i);
+
+        Microbench.measure("listOpenGames open=" + live, threads, 2_000, (t, i) -> service.listOpenGames());
+        service.close();
+    }
+
+    // -------------------------------------------------------
+    // Service, over RMI loopback
+    // -------------------------------------------------------
+    private static void rmiBenchmarks(int port, int[] threads) throws Exception {
+        Registry registry = LocateRegistry.createRegistry(port);
+        GameServiceImpl service = new GameServiceImpl();
+        registry.rebind("GameService", service);
+
+        GameService remote = (GameService) LocateRegistry.getRegistry("localhost", port).lookup("GameService");
+        String gameId = remote.createGame("rmi");
+
+        for (int t : threads) {
+            Microbench.measure("RMI getGameState round trip", t, 5_000, (th, i) -> remote.getGameState(gameId));
+        }
+
+        for (int t : threads) {
+            String[] gameIds = new String[t];
+            GameMatch[][] seats = new GameMatch[t][2];
+
+            Microbench.measure("RMI submitMove round trip", t, 9 * 300, (th, i) -> {
+                int move = i % DRAW.length;
+
+                if (move == 0) {
+                    seats[th][0] = remote.createMatch("x" + th, 3, 3);
+                    gameIds[th] = seats[th][0].getGameId();
+                    seats[th][1] = remote.joinMatch(gameIds[th], "o" + th);
+                }
+
+                return remote.submitMove(gameIds[th], new Move(seats[th][move % 2], DRAW[move][0], DRAW[move][1]));
+            });
+        }
+        service.close();
+    }
+
+    // -------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------
+
+    // A fresh service with the given number of games in progress
+    private static GameServiceImpl withLiveGames(int live) throws Exception {
+        GameServiceImpl service = new GameServiceImpl();
+
+        for (int i = 0; i < live; i++) {
+            String gameId = service.createGame("x" + i);
+            service.joinGame(gameId, "o" + i);
+        }
+        return service;
+    }
+
+    private static GameState sampleState() {
+        GameState gs = new GameState("1234");
+        Player x = new Player("alice", 'X');
+        Player o = new Player("bob", 'O');
+
+        gs.getPlayers().add(x);
+        gs.getPlayers().add(o);
+        gs.getBoard().place(1, 1, 'X');
+        gs.setCurrentTurnPlayerId(o.getId());
+        gs.setStatus(GameStatus.IN_PROGRESS);
+        return gs;
+    }
+
+    private static byte[] encode(Object o) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object decode(byte[] b) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(b))) {
+            return in.readObject();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq > 0)
+                opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+        return opts;
+    }
+
+    private static int[] ints(String csv) {
+        String[] parts = csv.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            values[i] = Integer.parseInt(parts[i].trim());
+        return values;
+    }
+}
@@ -0,0 +1,82 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Minimal multi-threaded timing loop used by the benchmarks in this package:
+ * a warmup pass, then every thread runs the operation a fixed number of times
+ * between two barriers and the wall time is reported as throughput and
+ * average latency.
+ */
+final class Microbench {
+
+    interface Op {
+        // One measured operation; thread is 0 .. threads-1. The result is
+        // consumed so the JIT cannot drop the work as dead code.
+        Object run(int thread, int i) throws Exception;
+    }
+
+    // Every result is compared against this (as a JMH Blackhole does); being
+    // volatile, the JIT cannot prove the comparison false and skip the work
+    private static volatile Object sentinel = new Object();
+
+    private Microbench() {
+    }
+
+    static void header() {
+        System.out.printf("%-44s %7s %12s %14s %12s%n", "benchmark", "threads", "ops", "ops/s", "ns/op");
+    }
+
+    static void measure(String name, int threads, int opsPerThread, Op op) throws Exception {
+        // Warmup so the JIT has compiled the path before we time it
+        runThreads(threads, Math.max(1, opsPerThread / 5), op);
+
+        long nanos = runThreads(threads, opsPerThread, op);
+
+        long ops = (long) threads * opsPerThread;
+        double perSecond = ops * 1e9 / nanos;
+        double nsPerOp = (double) nanos * threads / ops;
+
+        System.out.printf("%-44s %7d %12d %14.0f %12.1f%n", name, threads, ops, perSecond, nsPerOp);
+    }
+
+    private static long runThreads(int threads, int opsPerThread, Op op) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread w = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        if (op.run(thread, i) == sentinel)
+                            throw new IllegalStateException("never happens");
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-" + t);
+            w.setDaemon(true);
+            w.start();
+            workers.add(w);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long nanos = System.nanoTime() - begin;
+
+        if (failure.get() != null)
+            throw failure.get();
+
+        return nanos;
+    }
+}
@@ -0,0 +1,278 @@
+package bench;
+
+import model.GameMatch;
+import model.GameState;
+import model.GameStatus;
+import model.Move;
+import model.MoveResult;
+import model.Player;
+import service.GameServiceImpl;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrency check for the service in process: many threads create, join
+ * and move at the same time, then the invariants are verified.
+ *
+ *   - no two live games share an id
+ *   - no game ever has more than two players, and a join race has exactly
+ *     one winner
+ *   - no accepted move is lost: stones on the board and the game's version
+ *     both match the number of moves the service accepted
+ *
+ * Exits with 1 if anything is violated, so it can run in CI.
+ *
+ * Usage (from the repository root):
+ *   javac -d Output $(find . -name "*.java" -not -path "./bench/jmh/*")
+ *   java -cp Output bench.StressCheck [threads=16] [games=2000]
+ */
+public class StressCheck {
+
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        // Keep finished games around so they can be checked at the end
+        System.getProperties().putIfAbsent("game.ttl.finished", "600000");
+        System.getProperties().putIfAbsent("game.ids", "sequence");
+
+        Map<String, String> opts = parse(args);
+        int threads = Integer.parseInt(opts.getOrDefault("threads", "16"));
+        int games = Integer.parseInt(opts.getOrDefault("games", "2000"));
+
+        GameServiceImpl service = new GameServiceImpl();
+        try {
+            List<GameMatch[]> seats = joinRace(service, threads, games);
+            moveRace(service, threads, seats);
+            matchmakingRace(service, threads, games);
+        } finally {
+            service.close();
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("OK");
+            System.exit(0);
+        }
+
+        System.out.println(failures.size() + " failure(s):");
+        failures.stream().limit(20).forEach(f -> System.out.println("  " + f));
+        System.exit(1);
+    }
+
+    // -------------------------------------------------------
+    // Create, then every thread tries to join every game
+    // -------------------------------------------------------
+    private static List<GameMatch[]> joinRace(GameServiceImpl service, int threads, int games) throws Exception {
+        List<GameMatch> created = new ArrayList<>();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        runThreads(threads, t -> {
+            for (int i = t; i < games; i += threads) {
+                GameMatch m = service.createMatch("x" + i, 3, 3);
+                if (!ids.add(m.getGameId()))
+                    fail("duplicate game id " + m.getGameId());
+                synchronized (created) {
+                    created.add(m);
+                }
+            }
+        });
+
+        AtomicReferenceArray<GameMatch> joined = new AtomicReferenceArray<>(created.size());
+
+        runThreads(threads, t -> {
+            for (int i = 0; i < created.size(); i++) {
+                // Threads walk the games from different starting points
+                int g = (i + t * created.size() / threads) % created.size();
+                try {
+                    GameMatch m = service.joinMatch(created.get(g).getGameId(), "o" + t);
+                    if (!joined.compareAndSet(g, null, m))
+                        fail("second join accepted for game " + m.getGameId());
+                } catch (RemoteException full) {
+                    // Someone else got the seat
+                }
+            }
+        });
+
+        List<GameMatch[]> seats = new ArrayList<>();
+        for (int g = 0; g < created.size(); g++) {
+            GameMatch x = created.get(g);
+            GameMatch o = joined.get(g);
+            if (o == null)
+                fail("nobody joined game " + x.getGameId());
+            else
+                seats.add(new GameMatch[] { x, o });
+
+            checkPlayers(service.getGameState(x.getGameId()));
+        }
+
+        System.out.println("join race: " + created.size() + " games, " + seats.size() + " joined");
+        return seats;
+    }
+
+    // -------------------------------------------------------
+    // Every thread throws random moves at every game
+    // -------------------------------------------------------
+    private static void moveRace(GameServiceImpl service, int threads, List<GameMatch[]> seats) throws Exception {
+        AtomicInteger[] accepted = new AtomicInteger[seats.size()];
+        long[] startVersion = new long[seats.size()];
+        for (int g = 0; g < seats.size(); g++) {
+            accepted[g] = new AtomicInteger();
+            startVersion[g] = service.getGameState(seats.get(g)[0].getGameId()).getVersion();
+        }
+
+        AtomicInteger rejected = new AtomicInteger();
+
+        runThreads(threads, t -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            boolean busy = true;
+
+            while (busy) {
+                busy = false;
+                for (int i = 0; i < seats.size(); i++) {
+                    int g = (i + t * seats.size() / threads) % seats.size();
+                    GameMatch[] s = seats.get(g);
+                    String gameId = s[0].getGameId();
+
+                    if (service.getGameState(gameId).getStatus() == GameStatus.FINISHED)
+                        continue;
+                    busy = true;
+
+                    // Either seat, any cell: most of these are refused
+                    GameMatch mover = s[random.nextInt(2)];
+                    try {
+                        MoveResult r = service.submitMove(gameId, new Move(mover, random.nextInt(3), random.nextInt(3)));
+                        if (!r.isRejected())
+                            accepted[g].incrementAndGet();
+                    } catch (RemoteException refused) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        for (int g = 0; g < seats.size(); g++) {
+            GameState gs = service.getGameState(seats.get(g)[0].getGameId());
+            int stones = stones(gs);
+
+            if (stones != accepted[g].get())
+                fail(gs.getGameId() + ": " + accepted[g] + " moves accepted, " + stones + " on the board");
+            if (gs.getVersion() - startVersion[g] != accepted[g].get())
+                fail(gs.getGameId() + ": " + accepted[g] + " moves accepted, version moved by "
+                        + (gs.getVersion() - startVersion[g]));
+            checkPlayers(gs);
+        }
+
+        int total = 0;
+        for (AtomicInteger a : accepted)
+            total += a.get();
+        System.out.println("move race: " + total + " moves accepted, " + rejected + " refused");
+    }
+
+    // -------------------------------------------------------
+    // findOrCreateGame from every thread at once
+    // -------------------------------------------------------
+    private static void matchmakingRace(GameServiceImpl service, int threads, int games) throws Exception {
+        Map<String, GameMatch> creators = new ConcurrentHashMap<>();
+        Map<String, GameMatch> joiners = new ConcurrentHashMap<>();
+
+        runThreads(threads, t -> {
+            for (int i = t; i < 2 * games; i += threads) {
+                GameMatch m = service.findOrCreateGame("m" + i);
+                Map<String, GameMatch> seat = m.getSeat() == 0 ? creators : joiners;
+                if (seat.putIfAbsent(m.getGameId(), m) != null)
+                    fail("seat " + m.getSeat() + " of game " + m.getGameId() + " handed out twice");
+            }
+        });
+
+        for (GameMatch o : joiners.values()) {
+            if (!creators.containsKey(o.getGameId()))
+                fail("joined game " + o.getGameId() + " that no one created");
+
+            GameState gs = service.getGameState(o.getGameId());
+            checkPlayers(gs);
+            if (!o.getPlayer().getId().equals(gs.getPlayers().get(1).getId()))
+                fail(gs.getGameId() + ": joiner is not the second player");
+        }
+
+        System.out.println("matchmaking race: " + creators.size() + " created, " + joiners.size() + " joined");
+    }
+
+    // -------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------
+    interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runThreads(int threads, Task task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread w = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(thread);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "stress-" + t);
+            w.start();
+            workers.add(w);
+        }
+
+        start.countDown();
+        for (Thread w : workers)
+            w.join();
+
+        if (failure.get() != null)
+            throw failure.get();
+    }
+
+    // Every game checked has been joined: exactly two different players
+    private static void checkPlayers(GameState gs) {
+        List<Player> players = gs.getPlayers();
+        if (players.size() != 2)
+            fail(gs.getGameId() + " has " + players.size() + " players");
+        else if (players.get(0).getId().equals(players.get(1).getId()))
+            fail(gs.getGameId() + ": both seats hold the same player");
+    }
+
+    private static int stones(GameState gs) {
+        int n = gs.getBoard().getSize();
+        int stones = 0;
+        for (int r = 0; r < n; r++)
+            for (int c = 0; c < n; c++)
+                if (gs.getBoard().symbolAt(r, c) != ' ')
+                    stones++;
+        return stones;
+    }
+
+    private static void fail(String message) {
+        synchronized (failures) {
+            failures.add(message);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq > 0)
+                opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+        return opts;
+    }
+}
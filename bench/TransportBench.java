@@ -0,0 +1,142 @@
+package bench;
+
+import client.NioGameServiceClient;
+import metrics.LatencyHistogram;
+import server.NioGameServer;
+import service.GameService;
+import service.GameServiceImpl;
+import service.VirtualThreads;
+
+import java.io.Closeable;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * RMI against the NIO endpoint, both on loopback and serving the same
+ * GameServiceImpl: every client runs getGameState round trips on its own
+ * connection, all clients at once. Reports throughput, latency and the
+ * number of server-side threads the connections hold.
+ *
+ * Usage (from the repository root):
+ *   javac -d Output $(find . -name "*.java" -not -path "./bench/jmh/*")
+ *   java -cp Output bench.TransportBench [clients=16,256,1024] [calls=20000] [rmiPort=1199] [nioPort=1198]
+ */
+public class TransportBench {
+
+    interface Call {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq > 0) opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+
+        int totalCalls = Integer.parseInt(opts.getOrDefault("calls", "20000"));
+        int rmiPort = Integer.parseInt(opts.getOrDefault("rmiPort", "1199"));
+        int nioPort = Integer.parseInt(opts.getOrDefault("nioPort", "1198"));
+
+        GameServiceImpl service = new GameServiceImpl();
+        String gameId = service.createGame("bench");
+
+        Registry registry = LocateRegistry.createRegistry(rmiPort);
+        registry.rebind("GameService", service);
+        GameService rmi = (GameService) LocateRegistry.getRegistry("localhost", rmiPort).lookup("GameService");
+
+        NioGameServer nio = new NioGameServer(service, nioPort);
+        nio.start();
+
+        System.out.println("NIO calls on " + (VirtualThreads.available() ? "virtual" : "platform") + " threads");
+        System.out.printf("%-6s %8s %12s %10s %10s %10s %15s%n",
+                "", "clients", "calls/s", "mean us", "p99 us", "p999 us", "server threads");
+
+        for (String c : opts.getOrDefault("clients", "16,256,1024").split(",")) {
+            int clients = Integer.parseInt(c.trim());
+            int perClient = Math.max(50, totalCalls / clients);
+
+            // RMI: one connection (and one server thread) per concurrent caller
+            Call[] rmiCalls = new Call[clients];
+            for (int i = 0; i < clients; i++)
+                rmiCalls[i] = () -> rmi.getGameState(gameId);
+            run("RMI", rmiCalls, perClient, "RMI TCP Connection");
+
+            // NIO: a connection per client, threads only for calls in flight
+            List<GameService> conns = new ArrayList<>();
+            Call[] nioCalls = new Call[clients];
+            for (int i = 0; i < clients; i++) {
+                GameService s = NioGameServiceClient.connect("localhost", nio.port());
+                conns.add(s);
+                nioCalls[i] = () -> s.getGameState(gameId);
+            }
+            run("NIO", nioCalls, perClient, "nio-call");
+
+            for (GameService s : conns)
+                ((Closeable) s).close();
+        }
+
+        nio.close();
+        System.exit(0);
+    }
+
+    private static void run(String name, Call[] clients, int perClient, String serverThreadPrefix) throws Exception {
+        // Warmup, which also opens the connections
+        runClients(clients, Math.max(10, perClient / 5), new LatencyHistogram());
+
+        LatencyHistogram latency = new LatencyHistogram();
+        long nanos = runClients(clients, perClient, latency);
+
+        // Connections are still open here, idle
+        int serverThreads = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith(serverThreadPrefix) || t.getName().startsWith("nio-selector") && name.equals("NIO"))
+                serverThreads++;
+        }
+
+        long calls = (long) clients.length * perClient;
+        System.out.printf("%-6s %8d %12.0f %10.1f %10.1f %10.1f %15d%n",
+                name, clients.length, calls * 1e9 / nanos, latency.mean() / 1e3,
+                latency.percentile(99) / 1e3, latency.percentile(99.9) / 1e3, serverThreads);
+    }
+
+    private static long runClients(Call[] clients, int perClient, LatencyHistogram latency) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients.length);
+        Exception[] failure = new Exception[1];
+
+        for (int i = 0; i < clients.length; i++) {
+            Call call = clients[i];
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int k = 0; k < perClient; k++) {
+                        long t0 = System.nanoTime();
+                        call.run();
+                        latency.record(System.nanoTime() - t0);
+                    }
+                } catch (Exception e) {
+                    failure[0] = e;
+                } finally {
+                    done.countDown();
+                }
+            }, "client-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long nanos = System.nanoTime() - begin;
+
+        if (failure[0] != null)
+            throw failure[0];
+        return nanos;
+    }
+}
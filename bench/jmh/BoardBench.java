@@ -0,0 +1,56 @@
+package bench.jmh;
+
+import model.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board operations on their own: one op is a whole game, every move placed
+ * and checked for a winner. All results go to the Blackhole so the JIT
+ * cannot drop the work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBench {
+
+    // A full 3x3 game that ends in a draw, X and O alternating
+    private static final int[][] DRAW = {
+            {0, 0}, {0, 1}, {0, 2}, {1, 1}, {1, 0}, {1, 2}, {2, 1}, {2, 0}, {2, 2},
+    };
+
+    @Benchmark
+    public void classicDraw(Blackhole bh) {
+        Board b = new Board();
+
+        for (int move = 0; move < DRAW.length; move++) {
+            bh.consume(b.place(DRAW[move][0], DRAW[move][1], move % 2 == 0 ? 'X' : 'O'));
+            bh.consume(b.checkWinner());
+            bh.consume(b.isFull());
+        }
+    }
+
+    // 100 scattered moves on 15x15 (k=5), so nobody wins early
+    @Benchmark
+    public void gomoku(Blackhole bh) {
+        Board b = new Board(15, 5);
+
+        for (int move = 0; move < 100; move++) {
+            bh.consume(b.place((move * 7) % 15, (move * 11 + move / 15) % 15, move % 2 == 0 ? 'X' : 'O'));
+            bh.consume(b.checkWinner());
+        }
+    }
+}
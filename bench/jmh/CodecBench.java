@@ -0,0 +1,200 @@
+package bench.jmh;
+
+import model.Board;
+import model.GameState;
+import model.GameStatus;
+import model.MoveResult;
+import model.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip (serialize, then deserialize, each through a fresh object
+ * stream as in an RMI call) of GameState and MoveResult: the hand-written
+ * Externalizable codecs against plain Serializable classes holding the same
+ * fields, the way the model was written before.
+ *
+ * The serialized sizes are printed when a trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBench {
+
+    @Param({"externalizable", "serializable"})
+    public String codec;
+
+    // 3 = classic, 15 = Gomoku with 40 stones on it
+    @Param({"3", "15"})
+    public int boardSize;
+
+    private Object gameState;
+    private Object moveResult;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ClassNotFoundException {
+        GameState gs = sampleState(boardSize);
+        MoveResult mr = new MoveResult(gs, 1, 1, 'X');
+
+        boolean plain = codec.equals("serializable");
+        gameState = plain ? new PlainGameState(gs) : gs;
+        moveResult = plain ? new PlainMoveResult(mr) : mr;
+
+        System.out.printf("%n%s size=%d: GameState %d bytes, MoveResult %d bytes%n",
+                codec, boardSize, encode(gameState).length, encode(moveResult).length);
+
+        // Both codecs must at least survive the trip
+        roundTrip(gameState);
+        roundTrip(moveResult);
+    }
+
+    @Benchmark
+    public Object gameStateRoundTrip() throws IOException, ClassNotFoundException {
+        return roundTrip(gameState);
+    }
+
+    @Benchmark
+    public Object moveResultRoundTrip() throws IOException, ClassNotFoundException {
+        return roundTrip(moveResult);
+    }
+
+    // -------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------
+    private static Object roundTrip(Object o) throws IOException, ClassNotFoundException {
+        return decode(encode(o));
+    }
+
+    private static byte[] encode(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object decode(byte[] b) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(b))) {
+            return in.readObject();
+        }
+    }
+
+    private static GameState sampleState(int size) {
+        GameState gs = size == Board.CLASSIC_SIZE
+                ? new GameState("1234")
+                : new GameState("1234", new Board(size, 5));
+        Player x = new Player("alice", 'X');
+        Player o = new Player("bob", 'O');
+
+        gs.getPlayers().add(x);
+        gs.getPlayers().add(o);
+
+        int stones = size == Board.CLASSIC_SIZE ? 1 : 40;
+        for (int i = 0; i < stones; i++)
+            gs.getBoard().place((i * 7) % size, (i * 11 + i / size) % size, i % 2 == 0 ? 'X' : 'O');
+
+        gs.setCurrentTurnPlayerId(o.getId());
+        gs.setStatus(GameStatus.IN_PROGRESS);
+        gs.incrementVersion();
+        return gs;
+    }
+
+    // -------------------------------------------------------
+    // Plain Serializable Counterparts
+    // -------------------------------------------------------
+    static final class PlainPlayer implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+        private final String name;
+        private final char symbol;
+
+        PlainPlayer(Player p) {
+            id = p.getId();
+            name = p.getName();
+            symbol = p.getSymbol();
+        }
+    }
+
+    static final class PlainBoard implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int winLength;
+        private final char[][] cells;
+
+        PlainBoard(Board b) {
+            winLength = b.getWinLength();
+            cells = b.getCells();
+        }
+    }
+
+    static final class PlainGameState implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String gameId;
+        private final List<PlainPlayer> players = new ArrayList<>();
+        private final PlainBoard board;
+        private final GameStatus status;
+        private final String currentTurnPlayerId;
+        private final String winnerPlayerId;
+        private final long version;
+
+        PlainGameState(GameState gs) {
+            gameId = gs.getGameId();
+            for (Player p : gs.getPlayers())
+                players.add(new PlainPlayer(p));
+            board = new PlainBoard(gs.getBoard());
+            status = gs.getStatus();
+            currentTurnPlayerId = gs.getCurrentTurnPlayerId();
+            winnerPlayerId = gs.getWinnerPlayerId();
+            version = gs.getVersion();
+        }
+    }
+
+    static final class PlainMoveResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long version;
+        private final int row;
+        private final int col;
+        private final char symbol;
+        private final GameStatus status;
+        private final String currentTurnPlayerId;
+        private final String winnerPlayerId;
+        private final String error;
+
+        PlainMoveResult(MoveResult r) {
+            version = r.getVersion();
+            row = r.getRow();
+            col = r.getCol();
+            symbol = r.getSymbol();
+            status = r.getStatus();
+            currentTurnPlayerId = r.getCurrentTurnPlayerId();
+            winnerPlayerId = r.getWinnerPlayerId();
+            error = r.getError();
+        }
+    }
+}
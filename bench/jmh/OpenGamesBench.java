@@ -0,0 +1,56 @@
+package bench.jmh;
+
+import service.GameServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * listOpenGames with a number of games waiting for their second player,
+ * which is exactly what it returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dgame.ids=sequence")
+public class OpenGamesBench {
+
+    @Param({"0", "10000", "100000"})
+    public int open;
+
+    private GameServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws RemoteException {
+        service = new GameServiceImpl();
+
+        for (int i = 0; i < open; i++)
+            service.createGame("p" + i);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    public List<String> listOpenGames() throws RemoteException {
+        return service.listOpenGames();
+    }
+}
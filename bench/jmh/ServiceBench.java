@@ -0,0 +1,115 @@
+package bench.jmh;
+
+import model.GameMatch;
+import model.Move;
+import service.GameServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The service in process (no RMI) with a number of games in progress:
+ * moves and matchmaking. Run with -t to vary the threads.
+ *
+ * Finished games are evicted right away and ids are not capped at four
+ * digits, so long runs do not fill the server up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Dgame.ttl.finished=0", "-Dgame.ids=sequence"})
+public class ServiceBench {
+
+    // A full 3x3 game that ends in a draw, X and O alternating
+    private static final int[][] DRAW = {
+            {0, 0}, {0, 1}, {0, 2}, {1, 1}, {1, 0}, {1, 2}, {2, 1}, {2, 0}, {2, 2},
+    };
+
+    // Numbers the benchmark threads, see Seat
+    private static final AtomicInteger SEATS = new AtomicInteger();
+
+    @Param({"0", "10000", "100000"})
+    public int live;
+
+    private GameServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws RemoteException {
+        service = new GameServiceImpl();
+
+        for (int i = 0; i < live; i++) {
+            String gameId = service.createGame("x" + i);
+            service.joinGame(gameId, "o" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+    }
+
+    // The game a benchmark thread is playing and how far it got. Each thread
+    // plays under its own names, so threads do not contend on the same
+    // player profiles.
+    @State(Scope.Thread)
+    public static class Seat {
+        final int id = SEATS.incrementAndGet();
+
+        String gameId;
+        GameMatch x;
+        GameMatch o;
+        int move;
+
+        Move next(ServiceBench bench) throws RemoteException {
+            if (move == DRAW.length)
+                move = 0;
+
+            if (move == 0) {
+                x = bench.service.createMatch("x" + id, 3, 3);
+                gameId = x.getGameId();
+                o = bench.service.joinMatch(gameId, "o" + id);
+            }
+
+            int[] cell = DRAW[move];
+            GameMatch mover = move++ % 2 == 0 ? x : o;
+            return new Move(mover, cell[0], cell[1]);
+        }
+    }
+
+    // One op is one move; every 9th op also creates and joins a fresh game
+    @Benchmark
+    public Object submitMove(Seat seat) throws RemoteException {
+        Move m = seat.next(this);
+        return service.submitMove(seat.gameId, m);
+    }
+
+    @Benchmark
+    public Object makeMove(Seat seat) throws RemoteException {
+        Move m = seat.next(this);
+        return service.makeMove(seat.gameId, m);
+    }
+
+    // One op is two findOrCreateGame calls, i.e. one match on average
+    @Benchmark
+    public void findOrCreateGamePair(Seat seat, Blackhole bh) throws RemoteException {
+        bh.consume(service.findOrCreateGame("a" + seat.id));
+        bh.consume(service.findOrCreateGame("b" + seat.id));
+    }
+}
@@ -0,0 +1,96 @@
+package client;
+
+import model.GameMatch;
+import model.GameState;
+import model.Move;
+import model.MoveResult;
+import service.GameListener;
+import service.GameService;
+import service.VirtualThreads;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Non-blocking front for a {@link GameService}: every call runs on a
+ * dedicated executor (virtual threads where available) and completes a
+ * CompletableFuture, so UI threads never wait on the network.
+ *
+ * Swing code continues on the event thread with e.g.
+ * {@code future.thenAcceptAsync(..., AsyncGameService.EDT)}.
+ */
+public final class AsyncGameService {
+
+    // Runs continuations on the Swing event dispatch thread
+    public static final Executor EDT = javax.swing.SwingUtilities::invokeLater;
+
+    public interface Call<T> {
+        T run(GameService service) throws RemoteException;
+    }
+
+    private final GameService service;
+    private final ExecutorService executor = VirtualThreads.newPerTaskExecutor("game-call");
+
+    public AsyncGameService(GameService service) {
+        this.service = service;
+    }
+
+    // The wrapped service, for callers that run on their own threads
+    public GameService blocking() {
+        return service;
+    }
+
+    public <T> CompletableFuture<T> call(Call<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.run(service);
+            } catch (RemoteException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    public CompletableFuture<GameMatch> findOrCreateGame(String playerName) {
+        return call(s -> s.findOrCreateGame(playerName));
+    }
+
+    public CompletableFuture<GameMatch> playAgainstAi(String playerName) {
+        return call(s -> s.playAgainstAi(playerName));
+    }
+
+    public CompletableFuture<GameState> getGameState(String gameId) {
+        return call(s -> s.getGameState(gameId));
+    }
+
+    public CompletableFuture<GameState> awaitStateChange(String gameId, long knownVersion, long timeoutMs) {
+        return call(s -> s.awaitStateChange(gameId, knownVersion, timeoutMs));
+    }
+
+    public CompletableFuture<MoveResult> submitMove(String gameId, Move move) {
+        return call(s -> s.submitMove(gameId, move));
+    }
+
+    public CompletableFuture<Void> subscribe(String gameId, GameListener listener) {
+        return call(s -> {
+            s.subscribe(gameId, listener);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> unsubscribe(String gameId, GameListener listener) {
+        return call(s -> {
+            s.unsubscribe(gameId, listener);
+            return null;
+        });
+    }
+
+    // The RemoteException (or other failure) behind a failed future
+    public static Throwable cause(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null)
+            t = t.getCause();
+        return t;
+    }
+}
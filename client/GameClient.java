@@ -1,16 +1,22 @@
 package client;
 
+import model.GameMatch;
 import model.GameState;
-import model.Move;
-import model.Player;
+import model.GameStatus;
+import model.MoveResult;
 import service.GameService;
+import service.SpectatorListener;
 
 import java.rmi.Naming;
+import java.rmi.server.UnicastRemoteObject;
 import java.util.List;
 import java.util.Scanner;
 
 public class GameClient {
 
+    // How long a single long-poll call may park on the server
+    private static final long AWAIT_MS = 30_000;
+
     public static void main(String[] args) throws Exception {
 
         GameService service = (GameService) Naming.lookup("rmi://localhost/GameService");
@@ -20,37 +26,60 @@ public class GameClient {
         System.out.print("Enter your name: ");
         String name = sc.nextLine().trim();
 
-        System.out.println("1) Create Game\n2) Join Game\nChoose: ");
+        System.out.println("1) Create Game\n2) Join Game\n3) Play against the computer\n4) Watch a game\nChoose: ");
         int choice = Integer.parseInt(sc.nextLine());
 
         String gameId = null;
-        Player me = null;
+        GameMatch match = null;
+        HeartbeatSender heartbeat = null;
 
         // -------------------------------------------------------
         // Create Game
         // -------------------------------------------------------
         if (choice == 1) {
-            gameId = service.createGame(name);
+            System.out.print("Board size (3 = classic, 15 = Gomoku): ");
+            int size = Integer.parseInt(sc.nextLine().trim());
+
+            int winLength = size;
+            if (size != 3) {
+                System.out.print("How many in a row to win: ");
+                winLength = Integer.parseInt(sc.nextLine().trim());
+            }
+            match = service.createMatch(name, size, winLength);
+            gameId = match.getGameId();
+
+            // Lets the server drop the game if we quit while waiting
+            heartbeat = HeartbeatSender.start(service, match);
+
             System.out.println("Created game with id: " + gameId);
             System.out.println("Waiting for another player to join...");
 
-            // Poll until second player joins
-            while (true) {
-                GameState gs = service.getGameState(gameId);
-
-                if (gs.getPlayers().size() >= 2) {
-                    me = gs.getPlayers()
-                           .stream()
-                           .filter(p -> p.getName().equals(name))
-                           .findFirst()
-                           .orElse(null);
-                    break;
-                }
-
-                Thread.sleep(1000);
+            // Wait (server-side) until second player joins
+            GameState gs = service.getGameState(gameId);
+            while (gs.getPlayers().size() < 2) {
+                gs = service.awaitStateChange(gameId, gs.getVersion(), AWAIT_MS);
             }
         }
 
+        // -------------------------------------------------------
+        // Play Against the Computer
+        // -------------------------------------------------------
+        else if (choice == 3) {
+            match = service.playAgainstAi(name);
+            gameId = match.getGameId();
+
+            System.out.println("Playing against the computer as " + match.getPlayer().getSymbol());
+        }
+
+        // -------------------------------------------------------
+        // Watch a Game
+        // -------------------------------------------------------
+        else if (choice == 4) {
+            System.out.print("Game id: ");
+            watch(service, sc.nextLine().trim());
+            return;
+        }
+
         // -------------------------------------------------------
         // Join Game
         // -------------------------------------------------------
@@ -71,25 +100,33 @@ public class GameClient {
             int gchoice = Integer.parseInt(sc.nextLine());
 
             gameId = open.get(gchoice - 1);
-            me = service.joinGame(gameId, name);
+            match = service.joinMatch(gameId, name);
 
-            System.out.println("Joined game as " + me.getSymbol());
+            System.out.println("Joined game as " + match.getPlayer().getSymbol());
         }
 
         // -------------------------------------------------------
         // Game Loop
         // -------------------------------------------------------
+        // Fetched once; after that our own moves patch it and only the
+        // opponent's moves are waited for
+        LocalGame game = new LocalGame(match);
+        game.update(service.getGameState(gameId));
+
+        if (heartbeat == null)
+            heartbeat = HeartbeatSender.start(service, match);
+
         while (true) {
-            GameState gs = service.getGameState(gameId);
+            GameState gs = game.state();
             printBoard(gs);
 
             // Check game finished
-            if (gs.getStatus().toString().equals("FINISHED")) {
+            if (game.isOver()) {
 
-                if (gs.getWinnerPlayerId() == null) {
+                if (game.isDraw()) {
                     System.out.println("Game ended in a draw.");
                 }
-                else if (gs.getWinnerPlayerId().equals(me.getId())) {
+                else if (game.isWinner()) {
                     System.out.println("You win!");
                 }
                 else {
@@ -100,41 +137,101 @@ public class GameClient {
             }
 
             // Not player's turn
-            if (!gs.getCurrentTurnPlayerId().equals(me.getId())) {
+            if (!game.isMyTurn()) {
                 System.out.println("Waiting for opponent's move...");
-                Thread.sleep(1000);
+                while (!game.update(service.awaitStateChange(gameId, gs.getVersion(), AWAIT_MS))) {
+                    // timed out, keep waiting
+                }
                 continue;
             }
 
             // Player makes move
-            System.out.print("Your move. Enter row (0-2): ");
+            int last = gs.getBoard().getSize() - 1;
+            System.out.print("Your move. Enter row (0-" + last + "): ");
             int row = Integer.parseInt(sc.nextLine());
 
-            System.out.print("Enter col (0-2): ");
+            System.out.print("Enter col (0-" + last + "): ");
             int col = Integer.parseInt(sc.nextLine());
 
+            // Checked locally first, the server only sees moves worth sending
+            String refused = game.check(row, col);
+            if (refused != null) {
+                System.out.println("Move refused: " + refused);
+                continue;
+            }
+
             try {
-                Move mv = new Move(me.getId(), row, col);
-                gs = service.makeMove(gameId, mv);
+                MoveResult result = service.submitMove(gameId, game.move(row, col));
+
+                // Patch our copy, no need to fetch the whole state again
+                game.apply(result);
             } 
             catch (Exception ex) {
                 System.out.println("Move failed: " + ex.getMessage());
             }
         }
 
+        heartbeat.close();
         sc.close();
     }
 
+    // -------------------------------------------------------
+    // Spectator
+    // -------------------------------------------------------
+    private static void watch(GameService service, String gameId) throws Exception {
+        Spectator spectator = new Spectator();
+        SpectatorListener stub = (SpectatorListener) UnicastRemoteObject.exportObject(spectator, 0);
+
+        // Pushes wait until the initial state is in place
+        synchronized (spectator) {
+            spectator.state = service.watchGame(gameId, stub);
+            printBoard(spectator.state);
+
+            while (spectator.state.getStatus() != GameStatus.FINISHED)
+                spectator.wait();
+        }
+
+        System.out.println("Game over.");
+        service.stopWatching(gameId, stub);
+        UnicastRemoteObject.unexportObject(spectator, true);
+    }
+
+    // Keeps a local copy of the watched game up to date
+    private static class Spectator implements SpectatorListener {
+        GameState state;
+
+        @Override
+        public synchronized void onMoves(String gameId, List<MoveResult> moves) {
+            for (MoveResult r : moves)
+                state.apply(r);
+            printBoard(state);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void onSnapshot(GameState gs) {
+            state = gs;
+            printBoard(state);
+            notifyAll();
+        }
+    }
+
     // -------------------------------------------------------
     // Print Board Helper
     // -------------------------------------------------------
     private static void printBoard(GameState gs) {
         char[][] c = gs.getBoard().getCells();
+        int n = c.length;
 
         System.out.println("Current board:");
-        for (int i = 0; i < 3; i++) {
-            System.out.println(" " + c[i][0] + " | " + c[i][1] + " | " + c[i][2]);
-            if (i < 2) System.out.println("-----------");
+        for (int i = 0; i < n; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int j = 0; j < n; j++) {
+                if (j > 0) line.append(" |");
+                line.append(' ').append(c[i][j]);
+            }
+            System.out.println(line);
+            if (i < n - 1) System.out.println("-".repeat(4 * n - 1));
         }
     }
 }
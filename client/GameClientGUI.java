@@ -1,29 +1,45 @@
 package client;
 
 import model.GameState;
-import model.Move;
 import model.Player;
 import model.GameMatch;
+import service.GameListener;
 import service.GameService;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.rmi.Naming;
-import java.util.List;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class GameClientGUI extends JFrame {
 
+    private static final long serialVersionUID = 1L;
+
     private JLabel lblYou = new JLabel();
     private JLabel lblOpponent = new JLabel();
 
-    private GameService service;
-    private Player me;
+    // All server calls go through here, never blocking the EDT
+    private AsyncGameService service;
     private String gameId;
 
+    // Our copy of the current game, and the symbols currently on the
+    // buttons; only touched on the EDT
+    private LocalGame game;
+    private char[][] shown = new char[0][0];
+    private boolean moveInFlight;
+
+    // Keeps our seat alive on the server; stops when the window goes away
+    private HeartbeatSender heartbeat;
+
     private String playerName;
 
-    private JButton[][] buttons = new JButton[3][3];
+    // Sized from the game's board once a match is found
+    private JButton[][] buttons = new JButton[0][0];
+    private JPanel boardPanel;
     private JLabel lblStatus = new JLabel("Waiting another player...");
     private JLabel lblPlayerInfo = new JLabel();
 
@@ -32,13 +48,21 @@ public class GameClientGUI extends JFrame {
     private Color X_COLOR = new Color(220, 20, 60);   // Red
     private Color O_COLOR = new Color(30, 144, 255);  // Blue
 
-    private Timer gameUpdateTimer;
+    // Exported callback the server pushes state changes to
+    private GameListener stateListener;
+
+    // How long one long-poll may park on the server
+    private static final long AWAIT_MS = 30_000;
+    private static final long RETRY_MS = 2_000;
 
     public GameClientGUI() {
 
         try {
             String serverIP = JOptionPane.showInputDialog("Enter Server IP:");
-            service = (GameService) Naming.lookup("rmi://" + serverIP + "/GameService");
+            service = new AsyncGameService((GameService) Naming.lookup("rmi://" + serverIP + "/GameService"));
+
+            GameListener listener = this::onStateChanged;
+            stateListener = (GameListener) UnicastRemoteObject.exportObject(listener, 0);
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Cannot connect to server.");
@@ -77,26 +101,11 @@ public class GameClientGUI extends JFrame {
         add(topPanel, BorderLayout.NORTH);
 
         // -------- BOARD --------
-        JPanel board = new JPanel(new GridLayout(3, 3, 8, 8));
-        board.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
-        board.setBackground(new Color(230, 230, 230));
-
-        Font font = new Font("SansSerif", Font.BOLD, 48);
+        boardPanel = new JPanel();
+        boardPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        boardPanel.setBackground(new Color(230, 230, 230));
 
-        for (int r = 0; r < 3; r++) {
-            for (int c = 0; c < 3; c++) {
-                JButton btn = createAnimatedButton();
-                btn.setFont(font);
-
-                int rr = r, cc = c;
-                btn.addActionListener(e -> makeMove(rr, cc));
-
-                buttons[r][c] = btn;
-                board.add(btn);
-            }
-        }
-
-        add(board, BorderLayout.CENTER);
+        add(boardPanel, BorderLayout.CENTER);
 
         // -------- BOTTOM --------
         JPanel bottomPanel = new JPanel();
@@ -114,9 +123,6 @@ public class GameClientGUI extends JFrame {
         bottomPanel.add(btnPlayAgain);
         add(bottomPanel, BorderLayout.SOUTH);
 
-        // Auto-refresh
-        gameUpdateTimer = new Timer(800, e -> updateBoard());
-
         SwingUtilities.invokeLater(this::startMenu);
         setVisible(true);
     }
@@ -220,13 +226,39 @@ public class GameClientGUI extends JFrame {
         return b;
     }
 
-    // ------------------ MENU ------------------
-    private void startMenu() {
+    // ------------------ BOARD GRID ------------------
+    private void buildBoard(int size) {
+        if (buttons.length == size) return;
+
+        boardPanel.removeAll();
+        boardPanel.setLayout(new GridLayout(size, size, size > 3 ? 2 : 8, size > 3 ? 2 : 8));
+
+        // Shrink the symbols for Gomoku-sized boards
+        Font font = new Font("SansSerif", Font.BOLD, Math.max(12, 144 / size));
+
+        buttons = new JButton[size][size];
+        shown = new char[size][size];
 
-        if (gameUpdateTimer != null && gameUpdateTimer.isRunning()) {
-            gameUpdateTimer.stop();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                JButton btn = createAnimatedButton();
+                btn.setFont(font);
+
+                int rr = r, cc = c;
+                btn.addActionListener(e -> makeMove(rr, cc));
+
+                buttons[r][c] = btn;
+                boardPanel.add(btn);
+            }
         }
 
+        boardPanel.revalidate();
+        boardPanel.repaint();
+    }
+
+    // ------------------ MENU ------------------
+    private void startMenu() {
+
         if (this.playerName == null) {
             String inputName = JOptionPane.showInputDialog(this, "Enter your name:");
 
@@ -236,98 +268,165 @@ public class GameClientGUI extends JFrame {
             this.playerName = inputName;
         }
 
-        int choice = JOptionPane.showConfirmDialog(
-            this, "Ready to find a match, " + this.playerName + "?",
-            "Matchmaking", JOptionPane.OK_CANCEL_OPTION
+        String[] options = { "Find a match", "Play the computer", "Quit" };
+        int choice = JOptionPane.showOptionDialog(
+            this, "Ready to play, " + this.playerName + "?", "Matchmaking",
+            JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]
         );
 
-        if (choice != JOptionPane.OK_OPTION) System.exit(0);
+        if (choice != 0 && choice != 1) System.exit(0);
+
+        lblStatus.setText("Finding a match...");
+
+        CompletableFuture<GameMatch> matched = (choice == 1)
+                ? service.playAgainstAi(this.playerName)
+                : service.findOrCreateGame(this.playerName);
+
+        // Network steps run on the service's threads, the UI steps on the EDT
+        matched.thenAcceptAsync(m -> {
+                    game = new LocalGame(m);
+                    gameId = m.getGameId();
+                    heartbeat = HeartbeatSender.start(service.blocking(), m);
+                    lblStatus.setText("Waiting for opponent...");
+                }, AsyncGameService.EDT)
+                .thenCompose(v -> service.getGameState(gameId))
+                .thenCompose(this::waitForSecondPlayer)
+                .thenCompose(gs -> service.subscribe(gameId, stateListener)
+                        // From now on the server pushes every change to us;
+                        // fetch once more so nothing between is missed
+                        .thenCompose(v -> service.getGameState(gameId)))
+                .thenAcceptAsync(this::showGame, AsyncGameService.EDT)
+                .exceptionally(ex -> {
+                    SwingUtilities.invokeLater(() -> {
+                        JOptionPane.showMessageDialog(this, "Matchmaking error: " + AsyncGameService.cause(ex).getMessage());
+                        System.exit(0);
+                    });
+                    return null;
+                });
+    }
 
-        try {
-            GameMatch match = service.findOrCreateGame(this.playerName);
-            gameId = match.getGameId();
-            me = match.getPlayer();
+    // Parks on the server until someone joins instead of polling
+    private CompletableFuture<GameState> waitForSecondPlayer(GameState gs) {
+        if (gs.getPlayers().size() >= 2)
+            return CompletableFuture.completedFuture(gs);
 
-            if (service.getGameState(gameId).getPlayers().size() < 2) {
-                me = waitForSecondPlayer(this.playerName);
-            }
+        return service.awaitStateChange(gameId, gs.getVersion(), AWAIT_MS)
+                .thenCompose(this::waitForSecondPlayer);
+    }
 
-            List<Player> players = service.getGameState(gameId).getPlayers();
-            lblYou.setText("You: " + me.getName() + " (" + me.getSymbol() + ")");
+    private void showGame(GameState state) {
+        buildBoard(state.getBoard().getSize());
 
-            Player opp = players.stream().filter(p -> !p.getId().equals(me.getId())).findFirst().orElse(null);
-            lblOpponent.setText("Opponent: " + opp.getName() + " (" + opp.getSymbol() + ")");
+        // A push may have come in already, the newer state wins
+        game.update(state);
 
-            lblStatus.setText("Waiting for turn...");
-            gameUpdateTimer.start();
+        // Players are told apart by id, names need not be unique
+        Player me = game.me();
+        Player opp = game.opponent();
+        lblYou.setText("You: " + me.getName() + " (" + me.getSymbol() + ")");
+        lblOpponent.setText("Opponent: " + opp.getName() + " (" + opp.getSymbol() + ")");
 
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Matchmaking error: " + ex.getMessage());
-            System.exit(0);
-        }
+        updateBoard();
+        follow(game);
     }
 
-    private Player waitForSecondPlayer(String name) throws Exception {
-        lblStatus.setText("Waiting for opponent...");
-
-        while (true) {
-            GameState gs = service.getGameState(gameId);
-
-            if (gs.getPlayers().size() == 2) {
-                Player opp = gs.getPlayers().stream().filter(p -> !p.getName().equals(name)).findFirst().orElse(null);
-                lblOpponent.setText("Opponent: " + opp.getName() + " (" + opp.getSymbol() + ")");
+    // ------------------ LONG-POLL FALLBACK ------------------
+    // EDT only. Pushes can be lost (listener dropped, client behind NAT), so
+    // keep one awaitStateChange parked on the server until the game ends or
+    // is left. Whichever of push and poll comes first wins, update() skips
+    // the other.
+    private void follow(LocalGame g) {
+        if (g != game || g.isOver())
+            return;
+
+        service.awaitStateChange(g.gameId(), g.state().getVersion(), AWAIT_MS)
+                .whenCompleteAsync((gs, ex) -> {
+                    if (g != game)
+                        return;
+
+                    if (ex != null) {
+                        // Server unreachable for now, try again in a bit
+                        CompletableFuture.delayedExecutor(RETRY_MS, TimeUnit.MILLISECONDS, AsyncGameService.EDT)
+                                .execute(() -> follow(g));
+                        return;
+                    }
 
-                return gs.getPlayers().stream().filter(p -> p.getName().equals(name)).findFirst().orElse(null);
-            }
-            Thread.sleep(1000);
-        }
+                    if (g.update(gs))
+                        updateBoard();
+                    follow(g);
+                }, AsyncGameService.EDT);
     }
 
     // ------------------ MAKE MOVE ------------------
     private void makeMove(int r, int c) {
-        try {
-            GameState gs = service.getGameState(gameId);
+        if (game == null || game.state() == null || moveInFlight)
+            return;
+
+        // Checked against our copy of the game, no round trip
+        String refused = game.check(r, c);
+        if (refused != null) {
+            JOptionPane.showMessageDialog(this, refused + "!");
+            return;
+        }
 
-            if (!gs.getCurrentTurnPlayerId().equals(me.getId())) {
-                JOptionPane.showMessageDialog(this, "Not your turn!");
-                return;
-            }
+        moveInFlight = true;
+        LocalGame g = game;
 
-            Move mv = new Move(me.getId(), r, c);
-            service.makeMove(gameId, mv);
+        service.submitMove(g.gameId(), g.move(r, c))
+                .whenCompleteAsync((result, ex) -> {
+                    moveInFlight = false;
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Move failed: " + e.getMessage());
-        }
+                    if (ex != null)
+                        JOptionPane.showMessageDialog(this, "Move failed: " + AsyncGameService.cause(ex).getMessage());
+                    else if (g == game) {
+                        // The push may have overtaken us, apply() skips it then
+                        g.apply(result);
+                        updateBoard();
+                    }
+                }, AsyncGameService.EDT);
+    }
+
+    // ------------------ SERVER PUSH ------------------
+    // Runs on an RMI thread, hand the state over to the EDT. Older states
+    // (pushes can arrive out of order) are ignored.
+    private void onStateChanged(GameState gs) throws RemoteException {
+        SwingUtilities.invokeLater(() -> {
+            if (game != null && game.update(gs))
+                updateBoard();
+        });
     }
 
     // ------------------ UPDATE BOARD ------------------
+    // EDT only. Draws our copy of the game; only cells whose symbol changed
+    // are touched.
     private void updateBoard() {
         try {
-            if (gameId == null) return;
+            GameState gs = game.state();
+            int n = gs.getBoard().getSize();
+            if (shown.length != n) return; // not built yet, showGame() draws it
 
-            GameState gs = service.getGameState(gameId);
-            char[][] board = gs.getBoard().getCells();
+            for (int r = 0; r < n; r++) {
+                for (int c = 0; c < n; c++) {
+                    char symbol = gs.getBoard().symbolAt(r, c);
+                    if (symbol == shown[r][c])
+                        continue;
 
-            for (int r = 0; r < 3; r++) {
-                for (int c = 0; c < 3; c++) {
-                    String text = String.valueOf(board[r][c]);
+                    shown[r][c] = symbol;
                     JButton btn = buttons[r][c];
+                    btn.setText(symbol == ' ' ? "" : String.valueOf(symbol));
 
-                    btn.setText(text.equals(" ") ? "" : text);
-
-                    if (text.equals("X"))
+                    if (symbol == 'X')
                         btn.setForeground(X_COLOR);
-                    else if (text.equals("O"))
+                    else if (symbol == 'O')
                         btn.setForeground(O_COLOR);
                 }
             }
 
-            if (gs.getStatus().toString().equals("FINISHED")) {
+            if (game.isOver()) {
 
-                if (gs.getWinnerPlayerId() == null)
+                if (game.isDraw())
                     lblStatus.setText("Draw!");
-                else if (gs.getWinnerPlayerId().equals(me.getId()))
+                else if (game.isWinner())
                     lblStatus.setText("You WIN!");
                 else
                     lblStatus.setText("You LOSE!");
@@ -335,11 +434,7 @@ public class GameClientGUI extends JFrame {
                 disableBoard();
 
             } else {
-                lblStatus.setText(
-                        gs.getCurrentTurnPlayerId().equals(me.getId())
-                                ? "Your Turn"
-                                : "Opponent's Turn"
-                );
+                lblStatus.setText(game.isMyTurn() ? "Your Turn" : "Opponent's Turn");
             }
 
         } catch (Exception ignored) {}
@@ -355,8 +450,15 @@ public class GameClientGUI extends JFrame {
 
     private void resetGame() {
 
+        // Fire and forget, the game is over for us anyway
+        if (gameId != null) service.unsubscribe(gameId, stateListener);
+
+        if (heartbeat != null) heartbeat.close();
+
         gameId = null;
-        me = null;
+        game = null;
+        heartbeat = null;
+        moveInFlight = false;
 
         lblYou.setText("");
         lblOpponent.setText("");
@@ -364,10 +466,11 @@ public class GameClientGUI extends JFrame {
         lblStatus.setText("Waiting another player...");
         btnPlayAgain.setVisible(false);
 
-        for (int r = 0; r < 3; r++) {
-            for (int c = 0; c < 3; c++) {
+        for (int r = 0; r < buttons.length; r++) {
+            for (int c = 0; c < buttons.length; c++) {
                 buttons[r][c].setText("");
                 buttons[r][c].setEnabled(true);
+                shown[r][c] = ' ';
             }
         }
 
@@ -0,0 +1,59 @@
+package client;
+
+import model.GameMatch;
+import service.GameService;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells the server every few seconds that we are still playing, so a client
+ * that crashed or was closed loses its game within the server's grace period
+ * instead of leaving the opponent waiting. Stops by itself when the server
+ * reports the game over, otherwise when closed.
+ *
+ * All senders of a JVM share one daemon thread; a heartbeat is a tiny call.
+ */
+public final class HeartbeatSender implements AutoCloseable {
+
+    private static final long INTERVAL_MS = Long.getLong("game.heartbeat.intervalMs", 2_000);
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final GameService service;
+    private final GameMatch match;
+    private final ScheduledFuture<?> task;
+
+    private HeartbeatSender(GameService service, GameMatch match) {
+        this.service = service;
+        this.match = match;
+        this.task = TIMER.scheduleWithFixedDelay(this::beat, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Starts sending for the session of the match
+    public static HeartbeatSender start(GameService service, GameMatch match) {
+        return new HeartbeatSender(service, match);
+    }
+
+    private void beat() {
+        try {
+            if (!service.heartbeat(match.getGameId(), match.getSeat(), match.getToken()))
+                close();
+        } catch (RemoteException e) {
+            // Maybe just the network; keep trying until closed, the server's
+            // grace period decides when it is too late
+        }
+    }
+
+    @Override
+    public void close() {
+        task.cancel(false);
+    }
+}
@@ -0,0 +1,159 @@
+package client;
+
+import metrics.LatencyHistogram;
+import model.GameMatch;
+import model.GameState;
+import model.GameStatus;
+import model.Move;
+import server.GameServerMain;
+import service.GameService;
+import service.VirtualThreads;
+
+import java.rmi.Naming;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless load generator: N simulated players go through
+ * findOrCreateGame -> makeMove until their game is over, again and again,
+ * for a fixed duration. Reports matches/sec, move latency percentiles and
+ * error counts every few seconds and at the end.
+ *
+ * Usage:
+ *   java -cp Output client.LoadGenerator [host=localhost] [players=1000]
+ *        [seconds=60] [thinkMs=0] [local=false]
+ *
+ * With local=true a GameServerMain is started in this JVM first.
+ */
+public class LoadGenerator {
+
+    // Short long-poll so players notice the end of the run quickly
+    private static final long AWAIT_MS = 1_000;
+    private static final long REPORT_EVERY_MS = 5_000;
+
+    private final GameService service;
+    private final long thinkMs;
+    private final long deadline;
+
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+
+    private LoadGenerator(GameService service, long thinkMs, long deadline) {
+        this.service = service;
+        this.thinkMs = thinkMs;
+        this.deadline = deadline;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq > 0) opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+
+        String host = opts.getOrDefault("host", "localhost");
+        int players = Integer.parseInt(opts.getOrDefault("players", "1000"));
+        long seconds = Long.parseLong(opts.getOrDefault("seconds", "60"));
+        long thinkMs = Long.parseLong(opts.getOrDefault("thinkMs", "0"));
+
+        if (Boolean.parseBoolean(opts.getOrDefault("local", "false")))
+            GameServerMain.main(new String[0]);
+
+        GameService service = (GameService) Naming.lookup("rmi://" + host + "/GameService");
+
+        long start = System.currentTimeMillis();
+        LoadGenerator gen = new LoadGenerator(service, thinkMs, start + seconds * 1000);
+
+        System.out.println("Starting " + players + " players for " + seconds + "s"
+                + (VirtualThreads.available() ? " on virtual threads" : " on platform threads"));
+
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor("bot");
+        for (int i = 0; i < players; i++) {
+            String name = "bot-" + i;
+            executor.execute(() -> gen.runPlayer(name));
+        }
+        executor.shutdown();
+
+        while (!executor.awaitTermination(REPORT_EVERY_MS, TimeUnit.MILLISECONDS))
+            gen.report(System.currentTimeMillis() - start);
+
+        gen.report(System.currentTimeMillis() - start);
+        System.exit(0);
+    }
+
+    // -------------------------------------------------------
+    // One Simulated Player
+    // -------------------------------------------------------
+    private void runPlayer(String name) {
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                playOneGame(name);
+            } catch (Exception e) {
+                errors.increment();
+            }
+        }
+    }
+
+    private void playOneGame(String name) throws Exception {
+        GameMatch match = service.findOrCreateGame(name);
+        String gameId = match.getGameId();
+        String myId = match.getPlayer().getId();
+
+        GameState gs = service.getGameState(gameId);
+
+        while (gs.getStatus() != GameStatus.FINISHED) {
+            if (System.currentTimeMillis() >= deadline)
+                return;
+
+            // Wait for an opponent or for their move
+            if (gs.getPlayers().size() < 2 || !myId.equals(gs.getCurrentTurnPlayerId())) {
+                gs = service.awaitStateChange(gameId, gs.getVersion(), AWAIT_MS);
+                continue;
+            }
+
+            if (thinkMs > 0)
+                Thread.sleep(thinkMs);
+
+            int[] cell = randomFreeCell(gs.getBoard().getCells());
+
+            long begin = System.nanoTime();
+            gs.apply(service.submitMove(gameId, new Move(match, cell[0], cell[1])));
+            moveLatency.record(System.nanoTime() - begin);
+            moves.increment();
+        }
+
+        // Count each match once, from the creator's side
+        if (match.getPlayer().getSymbol() == 'X')
+            matches.increment();
+    }
+
+    private static int[] randomFreeCell(char[][] cells) {
+        List<int[]> free = new ArrayList<>();
+        for (int r = 0; r < cells.length; r++)
+            for (int c = 0; c < cells[r].length; c++)
+                if (cells[r][c] == ' ')
+                    free.add(new int[] {r, c});
+
+        return free.get(ThreadLocalRandom.current().nextInt(free.size()));
+    }
+
+    // -------------------------------------------------------
+    // Reporting
+    // -------------------------------------------------------
+    private void report(long elapsedMs) {
+        double seconds = Math.max(1, elapsedMs) / 1000.0;
+
+        System.out.printf("%6.1fs  matches=%d (%.1f/s)  moves=%d  errors=%d  move latency us p50=%.0f p99=%.0f p999=%.0f%n",
+                seconds, matches.sum(), matches.sum() / seconds, moves.sum(), errors.sum(),
+                moveLatency.percentile(50) / 1e3, moveLatency.percentile(99) / 1e3,
+                moveLatency.percentile(99.9) / 1e3);
+    }
+}
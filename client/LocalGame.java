@@ -0,0 +1,127 @@
+package client;
+
+import model.GameMatch;
+import model.GameState;
+import model.GameStatus;
+import model.Move;
+import model.MoveResult;
+import model.Player;
+
+/**
+ * Client-side mirror of one game, as seen by one of its players.
+ *
+ * Kept up to date from the results of our own moves and from the states the
+ * server pushes or returns, whichever is newer, so the client never has to
+ * fetch the state just to look at it. Moves the server would refuse anyway
+ * (not our turn, cell taken, game over) are refused here without a round
+ * trip. The server stays the authority: a move that passes here can still be
+ * rejected there, e.g. when the opponent's move has not reached us yet.
+ *
+ * Not thread-safe; the GUI only touches it on the EDT.
+ */
+public class LocalGame {
+
+    private final GameMatch match;
+
+    // Newest state seen, null until the first one arrives. Always a copy
+    // received from the server, never shared with it.
+    private GameState state;
+
+    public LocalGame(GameMatch match) {
+        this.match = match;
+    }
+
+    public GameMatch match() {
+        return match;
+    }
+
+    public String gameId() {
+        return match.getGameId();
+    }
+
+    public Player me() {
+        return match.getPlayer();
+    }
+
+    public GameState state() {
+        return state;
+    }
+
+    // The other player, null while nobody has joined
+    public Player opponent() {
+        if (state == null)
+            return null;
+
+        for (Player p : state.getPlayers()) {
+            if (!p.getId().equals(me().getId()))
+                return p;
+        }
+        return null;
+    }
+
+    // -------------------------------------------------------
+    // Updates from the server
+    // -------------------------------------------------------
+
+    // Takes the state if it is newer than ours (pushes can arrive out of
+    // order). Returns false if it was ignored.
+    public boolean update(GameState gs) {
+        if (gs == null || !gs.getGameId().equals(gameId()))
+            return false;
+        if (state != null && gs.getVersion() <= state.getVersion())
+            return false;
+
+        state = gs;
+        return true;
+    }
+
+    // Patches our state with the result of a move; results we already
+    // reflect are skipped
+    public void apply(MoveResult r) {
+        if (state != null)
+            state.apply(r);
+    }
+
+    // -------------------------------------------------------
+    // Local checks
+    // -------------------------------------------------------
+    public boolean isOver() {
+        return state != null && state.getStatus() == GameStatus.FINISHED;
+    }
+
+    public boolean isMyTurn() {
+        return state != null && state.getStatus() == GameStatus.IN_PROGRESS
+                && me().getId().equals(state.getCurrentTurnPlayerId());
+    }
+
+    public boolean isWinner() {
+        return isOver() && me().getId().equals(state.getWinnerPlayerId());
+    }
+
+    public boolean isDraw() {
+        return isOver() && state.getWinnerPlayerId() == null;
+    }
+
+    /**
+     * Why the server would refuse this move, as far as we know, or null if
+     * it is worth sending. Uses the same rules as {@code Board.place}.
+     */
+    public String check(int row, int col) {
+        if (state == null)
+            return "Game not started";
+        if (isOver())
+            return "Game is over";
+        if (state.getPlayers().size() < 2)
+            return "Waiting for an opponent";
+        if (!isMyTurn())
+            return "Not your turn";
+        if (!state.getBoard().canPlace(row, col))
+            return "Invalid move";
+        return null;
+    }
+
+    // The move, sent with our session
+    public Move move(int row, int col) {
+        return new Move(match, row, col);
+    }
+}
@@ -0,0 +1,158 @@
+package client;
+
+import server.NioProtocol;
+import service.GameService;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.Socket;
+import java.rmi.NoSuchObjectException;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.RemoteObject;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link GameService} over the NIO endpoint instead of RMI. One socket per
+ * client; any number of threads can call through it at the same time and
+ * their calls are multiplexed on that socket.
+ *
+ * Listeners (subscribe, watchGame) still need to be exported RMI objects:
+ * the server calls them back over RMI.
+ */
+public final class NioGameServiceClient implements InvocationHandler, Closeable {
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+
+    private final AtomicLong nextCallId = new AtomicLong();
+    private final Map<Long, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
+
+    private volatile IOException closed;
+
+    private NioGameServiceClient(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        Thread reader = new Thread(this::readLoop, "nio-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public static GameService connect(String host, int port) throws IOException {
+        NioGameServiceClient handler = new NioGameServiceClient(host, port);
+        return (GameService) Proxy.newProxyInstance(
+                GameService.class.getClassLoader(),
+                new Class<?>[] { GameService.class, Closeable.class },
+                handler);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+                close();
+                return null;
+            case "toString":
+                return "NioGameService[" + socket.getRemoteSocketAddress() + "]";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                break;
+        }
+
+        if (args != null) {
+            // Pass exported listeners by stub, the way RMI would
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] instanceof Remote && !(args[i] instanceof Proxy)) {
+                    try {
+                        args[i] = RemoteObject.toStub((Remote) args[i]);
+                    } catch (NoSuchObjectException notExported) {
+                        throw new RemoteException("Listener is not exported", notExported);
+                    }
+                }
+            }
+        }
+
+        long callId = nextCallId.incrementAndGet();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        pending.put(callId, result);
+
+        try {
+            byte[] frame = NioProtocol.request(callId, NioProtocol.methodKey(method), args);
+            synchronized (out) {
+                if (closed != null)
+                    throw closed;
+                out.write(frame);
+                out.flush();
+            }
+            return result.get();
+        } catch (IOException e) {
+            throw new RemoteException("Call failed", e);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } finally {
+            pending.remove(callId);
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (true) {
+                int len = in.readInt();
+                if (len < Long.BYTES + 1 || len > NioProtocol.MAX_FRAME)
+                    throw new IOException("Bad frame length " + len);
+
+                long callId = in.readLong();
+                byte[] body = new byte[len - Long.BYTES];
+                in.readFully(body);
+
+                CompletableFuture<Object> f = pending.get(callId);
+                if (f == null)
+                    continue;
+
+                try (ObjectInputStream o = NioProtocol.body(body, 1, body.length - 1)) {
+                    Object value = o.readObject();
+                    if (body[0] == NioProtocol.OK)
+                        f.complete(value);
+                    else
+                        f.completeExceptionally((Throwable) value);
+                } catch (ClassNotFoundException | ClassCastException | IOException e) {
+                    f.completeExceptionally(new RemoteException("Bad response", e));
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException cause) {
+        closed = cause;
+        RemoteException e = new RemoteException("Connection closed", cause);
+        for (CompletableFuture<Object> f : pending.values())
+            f.completeExceptionally(e);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fail(new IOException("Client closed"));
+        socket.close();
+    }
+}
@@ -0,0 +1,85 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent log-linear latency histogram (HdrHistogram style): every power
+ * of two is split into 16 linear sub-buckets, so any recorded value is off by
+ * at most ~6%. Recording is a couple of bit operations and one atomic
+ * increment, with no allocation, so it can stay on in hot paths.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100)
+    public long percentile(double p) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            n += counts.get(i);
+
+        if (n == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        total.reset();
+        sum.reset();
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);       // >= SUB_BITS
+        int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int magnitude = index / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        long base = (SUB_BUCKETS + sub) << (magnitude - SUB_BITS);
+        return base + (1L << (magnitude - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,68 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and latency of one service method. Recording is
+ * allocation-free.
+ */
+public class MethodStats implements MethodStatsMBean {
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    MethodStats(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // startNanos is System.nanoTime() taken when the call started
+    public void record(long startNanos, boolean ok) {
+        latency.record(System.nanoTime() - startNanos);
+        calls.increment();
+        if (!ok)
+            errors.increment();
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.mean() / 1e3;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.percentile(50) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.percentile(99.9) / 1e3;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        latency.reset();
+    }
+}
@@ -0,0 +1,19 @@
+package metrics;
+
+// JMX view of one GameService method, latencies in microseconds
+public interface MethodStatsMBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    void reset();
+}
@@ -0,0 +1,206 @@
+package metrics;
+
+import model.GameStatus;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and latency recorders for the game service: one {@link MethodStats}
+ * per remote method, time spent waiting for game locks, live games by status,
+ * matchmaking queue depth and (sampled) serialized payload sizes.
+ *
+ * Everything on the recording path is LongAdder / histogram increments, so it
+ * stays on in production. Only payload sizing allocates, and it runs for one
+ * call in PAYLOAD_SAMPLE_RATE.
+ *
+ * Exposed over JMX under "tictactoe:type=GameService" with registerMBeans(),
+ * and as text with dump().
+ */
+public class ServiceMetrics implements ServiceMetricsMBean {
+
+    private static final int PAYLOAD_SAMPLE_RATE = 64;
+
+    private final Map<String, MethodStats> methods = new LinkedHashMap<>();
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+    private final LatencyHistogram payloadBytes = new LatencyHistogram();
+
+    private final Map<GameStatus, LongAdder> live = new EnumMap<>(GameStatus.class);
+
+    // By the status the game had when it was evicted
+    private final Map<GameStatus, LongAdder> evicted = new EnumMap<>(GameStatus.class);
+
+    private volatile IntSupplier queueDepth = () -> 0;
+
+    public ServiceMetrics() {
+        for (GameStatus s : GameStatus.values()) {
+            live.put(s, new LongAdder());
+            evicted.put(s, new LongAdder());
+        }
+    }
+
+    // Stats of a method, created on first use; look them up once, not per call
+    public synchronized MethodStats method(String name) {
+        return methods.computeIfAbsent(name, MethodStats::new);
+    }
+
+    public void lockWait(long nanos) {
+        lockWait.record(nanos);
+    }
+
+    // A game went from one status to another; null means created / evicted
+    public void transition(GameStatus from, GameStatus to) {
+        if (from != null)
+            live.get(from).decrement();
+        if (to != null)
+            live.get(to).increment();
+        else if (from != null)
+            evicted.get(from).increment();
+    }
+
+    public void setQueueDepth(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    // Serialized size of a returned object, for a sample of the calls
+    public void samplePayload(Object result) {
+        if (ThreadLocalRandom.current().nextInt(PAYLOAD_SAMPLE_RATE) != 0)
+            return;
+
+        CountingStream counter = new CountingStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+            out.writeObject(result);
+        } catch (IOException ignored) {
+            return;
+        }
+        payloadBytes.record(counter.count);
+    }
+
+    // -------------------------------------------------------
+    // JMX
+    // -------------------------------------------------------
+    public void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        register(server, new ObjectName("tictactoe:type=GameService"), this);
+
+        for (MethodStats m : methodsSnapshot().values())
+            register(server, new ObjectName("tictactoe:type=GameService,method=" + m.name()), m);
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        if (server.isRegistered(name))
+            server.unregisterMBean(name);
+        server.registerMBean(bean, name);
+    }
+
+    private synchronized Map<String, MethodStats> methodsSnapshot() {
+        return new LinkedHashMap<>(methods);
+    }
+
+    @Override
+    public long getGamesWaiting() {
+        return live.get(GameStatus.WAITING_FOR_PLAYER).sum();
+    }
+
+    @Override
+    public long getGamesInProgress() {
+        return live.get(GameStatus.IN_PROGRESS).sum();
+    }
+
+    @Override
+    public long getGamesFinished() {
+        return live.get(GameStatus.FINISHED).sum();
+    }
+
+    @Override
+    public long getGamesEvicted() {
+        long sum = 0;
+        for (LongAdder a : evicted.values())
+            sum += a.sum();
+        return sum;
+    }
+
+    @Override
+    public long getEvictedWaiting() {
+        return evicted.get(GameStatus.WAITING_FOR_PLAYER).sum();
+    }
+
+    @Override
+    public long getEvictedIdle() {
+        return evicted.get(GameStatus.IN_PROGRESS).sum();
+    }
+
+    @Override
+    public long getEvictedFinished() {
+        return evicted.get(GameStatus.FINISHED).sum();
+    }
+
+    @Override
+    public int getMatchmakingQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public double getLockWaitP99Micros() {
+        return lockWait.percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getPayloadBytesMean() {
+        return payloadBytes.mean();
+    }
+
+    @Override
+    public long getPayloadBytesP99() {
+        return payloadBytes.percentile(99);
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("games waiting=%d in-progress=%d finished=%d evicted=%d queue=%d%n",
+                getGamesWaiting(), getGamesInProgress(), getGamesFinished(), getGamesEvicted(),
+                getMatchmakingQueueDepth()));
+        sb.append(String.format("evicted finished=%d idle=%d waiting=%d%n",
+                getEvictedFinished(), getEvictedIdle(), getEvictedWaiting()));
+        sb.append(String.format("lock wait us p50=%.1f p99=%.1f  payload bytes mean=%.0f p99=%d%n",
+                lockWait.percentile(50) / 1e3, getLockWaitP99Micros(), getPayloadBytesMean(), getPayloadBytesP99()));
+
+        for (MethodStats m : methodsSnapshot().values()) {
+            if (m.getCalls() == 0)
+                continue;
+            sb.append(String.format("  %-20s calls=%d errors=%d us mean=%.1f p50=%.1f p99=%.1f p999=%.1f%n",
+                    m.name(), m.getCalls(), m.getErrors(), m.getMeanMicros(),
+                    m.getP50Micros(), m.getP99Micros(), m.getP999Micros()));
+        }
+        return sb.toString();
+    }
+
+    // Counts bytes and throws them away
+    private static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package metrics;
+
+// JMX view of the game service as a whole
+public interface ServiceMetricsMBean {
+
+    long getGamesWaiting();
+
+    long getGamesInProgress();
+
+    long getGamesFinished();
+
+    long getGamesEvicted();
+
+    // Evicted games by the status they had: never joined, idle, finished
+    long getEvictedWaiting();
+
+    long getEvictedIdle();
+
+    long getEvictedFinished();
+
+    int getMatchmakingQueueDepth();
+
+    double getLockWaitP99Micros();
+
+    double getPayloadBytesMean();
+
+    long getPayloadBytesP99();
+
+    // Same text as the periodic dump
+    String dump();
+}
@@ -1,79 +1,242 @@
 package model;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
-public class Board implements Serializable {
+/**
+ * N x N board where K symbols in a row win (3 x 3 / 3 for classic
+ * Tic-Tac-Toe, e.g. 15 x 15 / 5 for Gomoku).
+ *
+ * Cells are stored as one bitset per symbol, bit (row * size + col). The
+ * winner is detected incrementally in place(): only the four lines through
+ * the cell just taken are examined, so a move costs O(K) whatever the board
+ * size. The classic board keeps its precomputed line masks.
+ */
+public class Board implements Externalizable {
 
-    private final char[][] cells = new char[3][3];
-    
+    private static final long serialVersionUID = 1L;
+
+    public static final int CLASSIC_SIZE = 3;
+    public static final int MAX_SIZE = 25;
+
+    // The 8 winning lines of the classic board: 3 rows, 3 columns, 2 diagonals
+    private static final int[] WIN_MASKS = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000,
+            0b001_001_001, 0b010_010_010, 0b100_100_100,
+            0b100_010_001, 0b001_010_100,
+    };
+
+    // Directions examined through the last placed cell: -, |, \, /
+    private static final int[][] DIRECTIONS = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+
+    private int size;
+    private int winLength;
+
+    private long[] xBits;
+    private long[] oBits;
+
+    private int filled;
+    private char winner = ' ';
+
+    // Set on the copy held by a GameState snapshot, see GameState.snapshot()
+    private transient boolean frozen;
+
+    // Classic 3x3 board (also used by Externalizable)
     public Board() {
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                cells[i][j] = ' ';
-            }
-        }
+        this(CLASSIC_SIZE, CLASSIC_SIZE);
+    }
+
+    public Board(int size, int winLength) {
+        if (size < CLASSIC_SIZE || size > MAX_SIZE)
+            throw new IllegalArgumentException("Board size must be between " + CLASSIC_SIZE + " and " + MAX_SIZE);
+
+        if (winLength < CLASSIC_SIZE || winLength > size)
+            throw new IllegalArgumentException("Win length must be between " + CLASSIC_SIZE + " and " + size);
+
+        allocate(size, winLength);
+    }
+
+    // Read-only copy for a snapshot
+    Board frozenCopy() {
+        Board b = new Board(size, winLength);
+        b.xBits = xBits.clone();
+        b.oBits = oBits.clone();
+        b.filled = filled;
+        b.winner = winner;
+        b.frozen = true;
+        return b;
+    }
+
+    private void allocate(int size, int winLength) {
+        this.size = size;
+        this.winLength = winLength;
+
+        int words = (size * size + 63) >>> 6;
+        this.xBits = new long[words];
+        this.oBits = new long[words];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getWinLength() {
+        return winLength;
     }
 
+    public boolean isClassic() {
+        return size == CLASSIC_SIZE && winLength == CLASSIC_SIZE;
+    }
+
+    // Rendered on demand for clients, the board itself has no char grid
     public char[][] getCells() {
+        char[][] cells = new char[size][size];
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cells[i][j] = symbolAt(i, j);
+            }
+        }
         return cells;
     }
 
+    public char symbolAt(int row, int col) {
+        int idx = row * size + col;
+
+        if (isSet(xBits, idx)) return 'X';
+        if (isSet(oBits, idx)) return 'O';
+        return ' ';
+    }
+
+    // Would place() accept a symbol at this cell? Lets clients check a move
+    // before sending it.
+    public boolean canPlace(int row, int col) {
+        if (row < 0 || row >= size || col < 0 || col >= size)
+            return false;
+
+        int idx = row * size + col;
+        return !isSet(xBits, idx) && !isSet(oBits, idx);
+    }
+
     public boolean place(int row, int col, char symbol) {
-        if (row < 0 || row > 2 || col < 0 || col > 2)
+        if (frozen)
+            throw new IllegalStateException("Board of a snapshot is read-only");
+
+        if (!canPlace(row, col))
             return false;
 
-        if (cells[row][col] != ' ')
+        int idx = row * size + col;
+
+        long[] bits;
+        if (symbol == 'X')
+            bits = xBits;
+        else if (symbol == 'O')
+            bits = oBits;
+        else
             return false;
 
-        cells[row][col] = symbol;
+        bits[idx >>> 6] |= 1L << idx;
+        filled++;
+
+        if (winner == ' ' && completesLine(bits, row, col))
+            winner = symbol;
+
         return true;
     }
 
     public boolean isFull() {
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                if (cells[i][j] == ' ')
-                    return false;
-            }
-        }
-        return true;
+        return filled == size * size;
     }
 
     public Character checkWinner() {
+        // Already worked out by place(), no winner yet if blank
+        return winner == ' ' ? null : winner;
+    }
+
+    // Does the cell just set in bits complete a line of winLength?
+    private boolean completesLine(long[] bits, int row, int col) {
+        if (isClassic()) {
+            int mine = (int) bits[0];
+            int bit = 1 << (row * CLASSIC_SIZE + col);
 
-        // Check rows
-        for (int i = 0; i < 3; i++) {
-            if (cells[i][0] != ' ' &&
-                cells[i][0] == cells[i][1] &&
-                cells[i][1] == cells[i][2]) {
-                return cells[i][0];
+            for (int mask : WIN_MASKS) {
+                if ((mask & bit) != 0 && (mine & mask) == mask)
+                    return true;
             }
+            return false;
         }
 
-        // Check columns
-        for (int j = 0; j < 3; j++) {
-            if (cells[0][j] != ' ' &&
-                cells[0][j] == cells[1][j] &&
-                cells[1][j] == cells[2][j]) {
-                return cells[0][j];
-            }
+        for (int[] d : DIRECTIONS) {
+            int count = 1
+                    + countFrom(bits, row, col, d[0], d[1])
+                    + countFrom(bits, row, col, -d[0], -d[1]);
+
+            if (count >= winLength)
+                return true;
+        }
+        return false;
+    }
+
+    // Consecutive own cells starting next to (row, col), capped at winLength
+    private int countFrom(long[] bits, int row, int col, int dr, int dc) {
+        int count = 0;
+        int r = row + dr;
+        int c = col + dc;
+
+        while (count < winLength && r >= 0 && r < size && c >= 0 && c < size
+                && isSet(bits, r * size + c)) {
+            count++;
+            r += dr;
+            c += dc;
         }
+        return count;
+    }
+
+    // Size, win length, winner and the raw bit words; 8 bytes for a classic board
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeHeader(out);
+        out.writeByte(size);
+        out.writeByte(winLength);
+        out.writeByte(winner);
 
-        // Check main diagonal
-        if (cells[0][0] != ' ' &&
-            cells[0][0] == cells[1][1] &&
-            cells[1][1] == cells[2][2]) {
-            return cells[0][0];
+        if (isClassic()) {
+            // 9 bits per symbol
+            out.writeShort((int) xBits[0]);
+            out.writeShort((int) oBits[0]);
+            return;
         }
 
-        // Check anti-diagonal
-        if (cells[0][2] != ' ' &&
-            cells[0][2] == cells[1][1] &&
-            cells[1][1] == cells[2][0]) {
-            return cells[0][2];
+        for (int i = 0; i < xBits.length; i++) {
+            out.writeLong(xBits[i]);
+            out.writeLong(oBits[i]);
         }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        WireFormat.readHeader(in);
+        allocate(in.readUnsignedByte(), in.readUnsignedByte());
+        winner = (char) in.readUnsignedByte();
+
+        if (isClassic()) {
+            xBits[0] = in.readUnsignedShort();
+            oBits[0] = in.readUnsignedShort();
+            filled = Long.bitCount(xBits[0]) + Long.bitCount(oBits[0]);
+            return;
+        }
+
+        filled = 0;
+        for (int i = 0; i < xBits.length; i++) {
+            xBits[i] = in.readLong();
+            oBits[i] = in.readLong();
+            filled += Long.bitCount(xBits[i]) + Long.bitCount(oBits[i]);
+        }
+    }
 
-        // No winner yet
-        return null;
+    private static boolean isSet(long[] bits, int idx) {
+        return (bits[idx >>> 6] & (1L << idx)) != 0;
     }
 }
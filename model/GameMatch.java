@@ -4,16 +4,33 @@ package model;
 import java.io.Serializable;
 
 public class GameMatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     private String gameId;
     private Player player;
 
+    // Session handle: the player's seat in the game (0 is 'X') and a secret
+    // token that authenticates moves made with it, see Move(GameMatch, ...).
+    // Token 0 means no session was issued.
+    private int seat;
+    private long token;
+
     public GameMatch(String gameId, Player player) {
+        this(gameId, player, -1, 0);
+    }
+
+    public GameMatch(String gameId, Player player, int seat, long token) {
         this.gameId = gameId;
         this.player = player;
+        this.seat = seat;
+        this.token = token;
     }
 
     // Getters and Setters must be present for RMI to work smoothly
     public String getGameId() { return gameId; }
     public Player getPlayer() { return player; }
+    public int getSeat() { return seat; }
+    public long getToken() { return token; }
     // ... (you may add setters, but getters are essential)
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package model;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A move together with the game it is for, one entry of a
+ * {@code GameService.makeMoves} batch.
+ */
+public class GameMove implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String gameId;
+    private Move move;
+
+    // Only for Externalizable
+    public GameMove() {
+    }
+
+    public GameMove(String gameId, Move move) {
+        this.gameId = gameId;
+        this.move = move;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public Move getMove() {
+        return move;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeHeader(out);
+        out.writeUTF(gameId);
+        move.writeExternal(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        WireFormat.readHeader(in);
+        gameId = in.readUTF();
+        move = new Move();
+        move.readExternal(in);
+    }
+}
@@ -1,14 +1,19 @@
 package model;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.List;
 
-public class GameState implements Serializable {
+public class GameState implements Externalizable {
 
-    private final String gameId;
-    private final List<Player> players = new ArrayList<>();
-    private final Board board = new Board();
+    private static final long serialVersionUID = 1L;
+
+    private String gameId;
+    private List<Player> players = new ArrayList<>();
+    private Board board;
 
     private GameStatus status = GameStatus.WAITING_FOR_PLAYER;
 
@@ -18,8 +23,51 @@ public class GameState implements Serializable {
     // Winner's playerId; null if draw or not finished
     private String winnerPlayerId;
 
+    // Bumped on every change, lets clients wait for "anything newer than N"
+    private long version;
+
+    // Set on snapshots: they are never modified, so their encoded form is
+    // built once, by the first write, and reused for every reader after that
+    private transient boolean frozen;
+    private transient volatile byte[] encoded;
+
+    // Only for Externalizable
+    public GameState() {
+    }
+
     public GameState(String gameId) {
+        this(gameId, new Board());
+    }
+
+    public GameState(String gameId, Board board) {
         this.gameId = gameId;
+        this.board = board;
+    }
+
+    /**
+     * Read-only copy of this state as it is now. The caller must keep the
+     * state from changing while the copy is taken (the server holds the
+     * game's lock). Snapshots reject every change; copies received over the
+     * wire are ordinary, modifiable states again.
+     */
+    public GameState snapshot() {
+        GameState s = new GameState(gameId, board.frozenCopy());
+        s.players = List.copyOf(players);
+        s.status = status;
+        s.currentTurnPlayerId = currentTurnPlayerId;
+        s.winnerPlayerId = winnerPlayerId;
+        s.version = version;
+        s.frozen = true;
+        return s;
+    }
+
+    public boolean isSnapshot() {
+        return frozen;
+    }
+
+    private void checkWritable() {
+        if (frozen)
+            throw new IllegalStateException("GameState snapshot is read-only");
     }
 
     public String getGameId() {
@@ -39,6 +87,7 @@ public class GameState implements Serializable {
     }
 
     public void setStatus(GameStatus status) {
+        checkWritable();
         this.status = status;
     }
 
@@ -47,6 +96,7 @@ public class GameState implements Serializable {
     }
 
     public void setCurrentTurnPlayerId(String id) {
+        checkWritable();
         this.currentTurnPlayerId = id;
     }
 
@@ -55,6 +105,105 @@ public class GameState implements Serializable {
     }
 
     public void setWinnerPlayerId(String id) {
+        checkWritable();
         this.winnerPlayerId = id;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void incrementVersion() {
+        checkWritable();
+        version++;
+    }
+
+    // Patch this copy with a move reported by the server. Results older than
+    // what this copy already reflects are ignored.
+    public void apply(MoveResult r) {
+        checkWritable();
+        if (r.isRejected() || r.getVersion() <= version)
+            return;
+
+        if (!r.isStatusChange())
+            board.place(r.getRow(), r.getCol(), r.getSymbol());
+        status = r.getStatus();
+        currentTurnPlayerId = idAt(r.getCurrentTurnSeat(), r.getCurrentTurnPlayerId());
+        winnerPlayerId = idAt(r.getWinnerSeat(), r.getWinnerPlayerId());
+        version = r.getVersion();
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        if (!frozen) {
+            writeFields(out);
+            return;
+        }
+
+        // Racing first writers both encode; the results are identical
+        byte[] bytes = encoded;
+        if (bytes == null)
+            encoded = bytes = WireFormat.encode(this::writeFields);
+        out.write(bytes);
+    }
+
+    // Players and board are written inline (no per-object class descriptors);
+    // turn and winner are sent as a seat index instead of repeating the ids
+    private void writeFields(ObjectOutput out) throws IOException {
+        WireFormat.writeHeader(out);
+        out.writeUTF(gameId);
+        out.writeLong(version);
+        WireFormat.writeStatus(out, status);
+
+        out.writeByte(players.size());
+        for (Player p : players)
+            p.writeExternal(out);
+
+        out.writeByte(seatOf(currentTurnPlayerId));
+        out.writeByte(seatOf(winnerPlayerId));
+
+        board.writeExternal(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        WireFormat.readHeader(in);
+        gameId = in.readUTF();
+        version = in.readLong();
+        status = WireFormat.readStatus(in);
+
+        int count = in.readUnsignedByte();
+        players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Player p = new Player();
+            p.readExternal(in);
+            players.add(p);
+        }
+
+        currentTurnPlayerId = idAt(in.readByte());
+        winnerPlayerId = idAt(in.readByte());
+
+        board = new Board();
+        board.readExternal(in);
+    }
+
+    int seatOf(String playerId) {
+        if (playerId != null) {
+            for (int i = 0; i < players.size(); i++) {
+                if (players.get(i).getId().equals(playerId))
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    private String idAt(int seat) {
+        return seat < 0 ? null : players.get(seat).getId();
+    }
+
+    // Seat of a MoveResult, or its id if the seat is not known here (a result
+    // made locally or by an older server, or a seat this copy has no player for)
+    private String idAt(int seat, String id) {
+        return seat >= 0 && seat < players.size() ? players.get(seat).getId() : id;
+    }
 }
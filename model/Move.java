@@ -1,12 +1,26 @@
 package model;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
-public class Move implements Serializable {
+public class Move implements Externalizable {
 
-    private final String playerId;
-    private final int row;
-    private final int col;
+    private static final long serialVersionUID = 1L;
+
+    private String playerId;
+    private int row;
+    private int col;
+
+    // Session of the sender as issued in its GameMatch: seat index in the
+    // game and the token proving it. Seat -1 if the move names only the id.
+    private int seat = -1;
+    private long token;
+
+    // Only for Externalizable
+    public Move() {
+    }
     
     public Move(String playerId, int row, int col) {
         this.playerId = playerId;
@@ -14,6 +28,17 @@ public class Move implements Serializable {
         this.col = col;
     }
 
+    // A move made through the session of a GameMatch
+    public Move(GameMatch match, int row, int col) {
+        this(match.getPlayer().getId(), match.getSeat(), match.getToken(), row, col);
+    }
+
+    public Move(String playerId, int seat, long token, int row, int col) {
+        this(playerId, row, col);
+        this.seat = seat;
+        this.token = token;
+    }
+
     public String getPlayerId() {
         return playerId;
     }
@@ -25,4 +50,35 @@ public class Move implements Serializable {
     public int getCol() {
         return col;
     }
+
+    public int getSeat() {
+        return seat;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeHeader(out);
+        WireFormat.writeNullableUTF(out, playerId);
+        WireFormat.writeCoord(out, row);
+        WireFormat.writeCoord(out, col);
+        out.writeByte(seat);
+        out.writeLong(token);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int format = WireFormat.readHeader(in);
+        playerId = WireFormat.readNullableUTF(in);
+        row = WireFormat.readCoord(in);
+        col = WireFormat.readCoord(in);
+
+        if (format >= 3) {
+            seat = in.readByte();
+            token = in.readLong();
+        }
+    }
 }
@@ -0,0 +1,165 @@
+package model;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Compact outcome of a single move: the cell that changed plus the game's
+ * status afterwards. Clients apply it to their copy of the game with
+ * {@link GameState#apply(MoveResult)} instead of re-fetching the whole state.
+ *
+ * In a batch (makeMoves) a move that was refused comes back as a rejected
+ * result carrying the error instead of failing the whole call.
+ *
+ * A result without a cell ({@link #isStatusChange()}) reports a change that
+ * was not a move: the second player joining, or a player forfeiting. A join
+ * adds a player, which the result does not carry; fetch the state for that.
+ *
+ * The next player and the winner travel as seat indexes, like in GameState.
+ * A result received over the wire therefore has no player ids; applying it
+ * to the game maps the seats back to them.
+ */
+public class MoveResult implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long version;
+    private int row;
+    private int col;
+    private char symbol;
+
+    private GameStatus status;
+
+    // Seat of the player to move next (unchanged when the game is finished)
+    // and of the winner (-1 if draw or not finished)
+    private int currentTurnSeat = -1;
+    private int winnerSeat = -1;
+
+    // The same as ids; only set where the result was made, never sent
+    private String currentTurnPlayerId;
+    private String winnerPlayerId;
+
+    // Why the move was refused; null if it was applied
+    private String error;
+
+    // Only for Externalizable
+    public MoveResult() {
+    }
+
+    // The move at (row, col), given the game right after it
+    public MoveResult(GameState after, int row, int col, char symbol) {
+        this.version = after.getVersion();
+        this.row = row;
+        this.col = col;
+        this.symbol = symbol;
+        this.status = after.getStatus();
+        this.currentTurnPlayerId = after.getCurrentTurnPlayerId();
+        this.winnerPlayerId = after.getWinnerPlayerId();
+        this.currentTurnSeat = after.seatOf(currentTurnPlayerId);
+        this.winnerSeat = after.seatOf(winnerPlayerId);
+    }
+
+    public static MoveResult rejected(int row, int col, String error) {
+        MoveResult r = new MoveResult();
+        r.row = row;
+        r.col = col;
+        r.error = error;
+        return r;
+    }
+
+    public static MoveResult statusChange(GameState after) {
+        return new MoveResult(after, -1, -1, ' ');
+    }
+
+    public boolean isRejected() {
+        return error != null;
+    }
+
+    public boolean isStatusChange() {
+        return error == null && row < 0;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public char getSymbol() {
+        return symbol;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    public int getCurrentTurnSeat() {
+        return currentTurnSeat;
+    }
+
+    public int getWinnerSeat() {
+        return winnerSeat;
+    }
+
+    // null on a result received over the wire, see getCurrentTurnSeat()
+    public String getCurrentTurnPlayerId() {
+        return currentTurnPlayerId;
+    }
+
+    // null on a result received over the wire, see getWinnerSeat()
+    public String getWinnerPlayerId() {
+        return winnerPlayerId;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeHeader(out);
+        out.writeLong(version);
+        WireFormat.writeCoord(out, row);
+        WireFormat.writeCoord(out, col);
+        out.writeChar(symbol);
+        WireFormat.writeNullableUTF(out, error);
+        if (error != null)
+            return;
+
+        WireFormat.writeStatus(out, status);
+        out.writeByte(currentTurnSeat);
+        out.writeByte(winnerSeat);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int format = WireFormat.readHeader(in);
+        version = in.readLong();
+        row = WireFormat.readCoord(in);
+        col = WireFormat.readCoord(in);
+        symbol = in.readChar();
+
+        if (format >= 2)
+            error = WireFormat.readNullableUTF(in);
+        if (error != null)
+            return;
+
+        status = WireFormat.readStatus(in);
+        if (format >= 4) {
+            currentTurnSeat = in.readByte();
+            winnerSeat = in.readByte();
+        } else {
+            // Older writers sent the ids themselves
+            currentTurnPlayerId = WireFormat.readNullableUTF(in);
+            winnerPlayerId = WireFormat.readNullableUTF(in);
+        }
+    }
+}
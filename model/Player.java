@@ -1,24 +1,50 @@
 package model;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.UUID;
 
-public class Player implements Serializable {
+public class Player implements Externalizable {
 
-    private final String id;
-    private final String name;
-    private final char symbol;
+    private static final long serialVersionUID = 1L;
+
+    // The UUID is kept as two longs (16 bytes on the wire instead of a
+    // 36-char string); its text form is built on first use
+    private long idHigh;
+    private long idLow;
+    private transient String id;
+
+    private String name;
+    private char symbol;
+
+    // Only for Externalizable
+    public Player() {
+    }
 
     public Player(String name, char symbol) {
-        this.id = UUID.randomUUID().toString();
+        this(UUID.randomUUID(), name, symbol);
+    }
+
+    // Recreate a known player, e.g. when a game is restored
+    public Player(UUID uuid, String name, char symbol) {
+        this.idHigh = uuid.getMostSignificantBits();
+        this.idLow = uuid.getLeastSignificantBits();
         this.name = name;
         this.symbol = symbol;
     }
 
     public String getId() {
+        if (id == null)
+            id = new UUID(idHigh, idLow).toString();
         return id;
     }
 
+    public UUID getUuid() {
+        return new UUID(idHigh, idLow);
+    }
+
     public String getName() {
         return name;
     }
@@ -26,4 +52,22 @@ public class Player implements Serializable {
     public char getSymbol() {
         return symbol;
     }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeHeader(out);
+        out.writeLong(idHigh);
+        out.writeLong(idLow);
+        out.writeUTF(name);
+        out.writeChar(symbol);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        WireFormat.readHeader(in);
+        idHigh = in.readLong();
+        idLow = in.readLong();
+        name = in.readUTF();
+        symbol = in.readChar();
+    }
 }
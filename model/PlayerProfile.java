@@ -0,0 +1,78 @@
+package model;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A player's rating and record, as kept by the server across games and
+ * restarts. Players are known by name.
+ */
+public class PlayerProfile implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+    private int rating;
+    private int wins;
+    private int losses;
+    private int draws;
+
+    // Only for Externalizable
+    public PlayerProfile() {
+    }
+
+    public PlayerProfile(String name, int rating, int wins, int losses, int draws) {
+        this.name = name;
+        this.rating = rating;
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Elo rating, 1200 for a new player
+    public int getRating() {
+        return rating;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getGames() {
+        return wins + losses + draws;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeHeader(out);
+        out.writeUTF(name);
+        out.writeShort(rating);
+        out.writeInt(wins);
+        out.writeInt(losses);
+        out.writeInt(draws);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        WireFormat.readHeader(in);
+        name = in.readUTF();
+        rating = in.readShort();
+        wins = in.readInt();
+        losses = in.readInt();
+        draws = in.readInt();
+    }
+}
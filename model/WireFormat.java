@@ -0,0 +1,95 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Small helpers shared by the hand-written Externalizable codecs of the model
+ * classes. Every codec starts with a format byte so fields can be added later
+ * without breaking older readers silently.
+ *
+ * Versions: 1 initial, 2 adds MoveResult's error, 3 adds Move's seat and token,
+ * 4 sends MoveResult's next player and winner as seats.
+ */
+final class WireFormat {
+
+    static final byte VERSION = 4;
+
+    private WireFormat() {
+    }
+
+    static void writeHeader(ObjectOutput out) throws IOException {
+        out.writeByte(VERSION);
+    }
+
+    // Older versions are still read (journal snapshots outlive upgrades)
+    static int readHeader(ObjectInput in) throws IOException {
+        byte v = in.readByte();
+        if (v < 1 || v > VERSION)
+            throw new IOException("Unsupported wire format version " + v);
+        return v;
+    }
+
+    static void writeNullableUTF(ObjectOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null)
+            out.writeUTF(s);
+    }
+
+    static String readNullableUTF(ObjectInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Board coordinates fit in a byte (Board.MAX_SIZE is 25). Anything outside
+    // is clamped, which keeps an invalid coordinate invalid.
+    static void writeCoord(ObjectOutput out, int v) throws IOException {
+        out.writeByte(Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, v)));
+    }
+
+    static int readCoord(ObjectInput in) throws IOException {
+        return in.readByte();
+    }
+
+    static void writeStatus(ObjectOutput out, GameStatus status) throws IOException {
+        out.writeByte(status.ordinal());
+    }
+
+    static GameStatus readStatus(ObjectInput in) throws IOException {
+        return GameStatus.values()[in.readByte()];
+    }
+
+    // -------------------------------------------------------
+    // Pre-encoded bodies
+    // -------------------------------------------------------
+    interface Body {
+        void write(ObjectOutput out) throws IOException;
+    }
+
+    /**
+     * Runs a codec into a plain byte array. Inside writeExternal, writing
+     * these bytes is the same as running the codec again, as long as it only
+     * writes primitives and nested writeExternal calls (no writeObject).
+     */
+    static byte[] encode(Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (RawOutput out = new RawOutput(bytes)) {
+            body.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static final class RawOutput extends DataOutputStream implements ObjectOutput {
+
+        RawOutput(ByteArrayOutputStream bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public void writeObject(Object obj) {
+            throw new UnsupportedOperationException("Pre-encoded bodies hold primitives only");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring mapping game ids to shard names. Every shard is placed
+ * on the ring many times (virtual nodes) so ids spread evenly, and adding or
+ * removing a shard only moves the ids next to its points.
+ *
+ * Router and shards build the ring from the same shard list, so they agree on
+ * the owner of every id without talking to each other.
+ */
+public class ConsistentHashRing {
+
+    private static final int VIRTUAL_NODES = 128;
+
+    private final TreeMap<Integer, String> ring = new TreeMap<>();
+    private final List<String> shards;
+
+    public ConsistentHashRing(List<String> shards) {
+        if (shards.isEmpty())
+            throw new IllegalArgumentException("No shards");
+
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+
+        for (String shard : shards) {
+            for (int i = 0; i < VIRTUAL_NODES; i++)
+                ring.put(hash(shard + "#" + i), shard);
+        }
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    public String shardFor(String key) {
+        Map.Entry<Integer, String> e = ring.ceilingEntry(hash(key));
+        return e != null ? e.getValue() : ring.firstEntry().getValue();
+    }
+
+    // String.hashCode with a murmur3 finalizer, short numeric ids hash poorly otherwise
+    private static int hash(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
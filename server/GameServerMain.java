@@ -1,21 +1,86 @@
 package server;
 
+import metrics.ServiceMetrics;
+import service.GameIdAllocator;
 import service.GameService;
 import service.GameServiceImpl;
 
+import java.nio.file.Paths;
 import java.rmi.Naming;
 import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Starts the game server. Arguments are key=value pairs:
+ *
+ *   (none)                       single server on port 1099
+ *   mode=shard name=a port=1100 shards=a@localhost:1100,b@localhost:1101
+ *                                one shard, owning the ids the ring gives to "a"
+ *   mode=router port=1099 shards=a@localhost:1100,b@localhost:1101
+ *                                front-end that clients connect to as usual
+ *
+ * Router and every shard must be given the same shards list.
+ *
+ * Any mode also takes nioPort=1098 to serve the same service on the NIO
+ * endpoint (see NioGameServer) next to RMI.
+ */
 public class GameServerMain {
 
     public static void main(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq > 0) opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+
+        String mode = opts.getOrDefault("mode", "standalone");
+        int port = Integer.parseInt(opts.getOrDefault("port", "1099"));
+
         try {
-            System.out.println("Starting RMI registry on port 1099...");
-            LocateRegistry.createRegistry(1099);
+            System.out.println("Starting RMI registry on port " + port + "...");
+            Registry registry = LocateRegistry.createRegistry(port);
+
+            GameService service;
+
+            switch (mode) {
+                case "standalone":
+                    service = startGameService(GameIdAllocator.fromSystemProperties());
+                    break;
+
+                case "shard": {
+                    String name = opts.get("name");
+                    ConsistentHashRing ring = new ConsistentHashRing(new ArrayList<>(shardAddresses(opts).keySet()));
+                    service = startGameService(new OwnedIdAllocator(GameIdAllocator.fromSystemProperties(), ring, name));
+                    System.out.println("Shard " + name + " of " + ring.shards());
+                    break;
+                }
+
+                case "router": {
+                    Map<String, GameService> shards = new LinkedHashMap<>();
+                    for (Map.Entry<String, String> s : shardAddresses(opts).entrySet())
+                        shards.put(s.getKey(), (GameService) Naming.lookup("rmi://" + s.getValue() + "/GameService"));
 
-            GameService service = new GameServiceImpl();
-            Naming.rebind("GameService", service);
+                    service = new ShardRouter(new ConsistentHashRing(new ArrayList<>(shards.keySet())), shards);
+                    System.out.println("Routing to shards " + shards.keySet());
+                    break;
+                }
 
+                default:
+                    throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+
+            registry.rebind("GameService", service);
+
+            String nioPort = opts.get("nioPort");
+            if (nioPort != null) {
+                NioGameServer nio = new NioGameServer(service, Integer.parseInt(nioPort));
+                nio.start();
+                System.out.println("NIO endpoint on port " + nio.port());
+            }
 
             System.out.println("GameService bound. Server ready.");
         } 
@@ -23,5 +88,64 @@ public class GameServerMain {
             e.printStackTrace();
         }
     }
-}
 
+    private static GameServiceImpl startGameService(GameIdAllocator ids) throws Exception {
+        GameServiceImpl service = new GameServiceImpl(ids);
+
+        // Restore games from the journal before accepting calls
+        String journalDir = System.getProperty("game.journal.dir");
+        if (journalDir != null) {
+            int restored = service.openJournal(Paths.get(journalDir));
+            System.out.println("Journal " + journalDir + ": restored " + restored + " games.");
+
+            Runtime.getRuntime().addShutdownHook(new Thread(service::closeJournal));
+        }
+
+        // Player ratings survive restarts if given a file
+        String profileFile = System.getProperty("game.profiles.file");
+        if (profileFile != null) {
+            int loaded = service.openProfiles(Paths.get(profileFile));
+            System.out.println("Profiles " + profileFile + ": loaded " + loaded + " players.");
+
+            Runtime.getRuntime().addShutdownHook(new Thread(service::closeProfiles));
+        }
+
+        // Metrics over JMX, plus a text dump every N seconds if asked for
+        ServiceMetrics metrics = service.metrics();
+        metrics.registerMBeans();
+
+        long dumpSeconds = Long.getLong("game.metrics.dumpSeconds", 0);
+        if (dumpSeconds > 0) {
+            Thread dumper = new Thread(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(dumpSeconds * 1000);
+                        System.out.print(metrics.dump());
+                    }
+                } catch (InterruptedException ignored) {
+                    // shutting down
+                }
+            }, "metrics-dump");
+            dumper.setDaemon(true);
+            dumper.start();
+        }
+
+        return service;
+    }
+
+    // shards=a@host:port,b@host:port -> {a=host:port, b=host:port}, in the given order
+    private static Map<String, String> shardAddresses(Map<String, String> opts) {
+        String spec = opts.get("shards");
+        if (spec == null)
+            throw new IllegalArgumentException("shards=name@host:port,... is required");
+
+        Map<String, String> shards = new LinkedHashMap<>();
+        for (String s : spec.split(",")) {
+            int at = s.indexOf('@');
+            if (at <= 0)
+                throw new IllegalArgumentException("Bad shard " + s + ", expected name@host:port");
+            shards.put(s.substring(0, at).trim(), s.substring(at + 1).trim());
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,326 @@
+package server;
+
+import service.AsyncLongPoll;
+import service.GameService;
+import service.VirtualThreads;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Non-blocking endpoint serving the same {@link GameService} operations as
+ * RMI, for deployments with more client connections than RMI's
+ * thread-per-connection model can hold.
+ *
+ * One selector thread owns every connection and only moves bytes. Each
+ * complete request frame ({@link NioProtocol}) is decoded and invoked on the
+ * service from a per-call executor: virtual threads on Java 21+, a cached
+ * pool of platform threads before that. An idle connection costs a buffer,
+ * not a thread, and long-polls such as awaitStateChange never block the
+ * selector. If the service implements {@link AsyncLongPoll}, a parked
+ * awaitStateChange holds no thread at all: it is answered when its future
+ * completes.
+ */
+public class NioGameServer implements Closeable {
+
+    private final GameService service;
+    private final Map<String, Method> methods = new HashMap<>();
+
+    // Set if the service can long-poll without a thread, see AsyncLongPoll
+    private final AsyncLongPoll longPoll;
+    private final Method awaitStateChange;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final ExecutorService calls = VirtualThreads.newPerTaskExecutor("nio-call");
+
+    // Connections with responses to write, handed over to the selector thread
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = true;
+
+    public NioGameServer(GameService service, int port) throws IOException {
+        this.service = service;
+
+        for (Method m : GameService.class.getMethods())
+            methods.put(NioProtocol.methodKey(m), m);
+
+        longPoll = service instanceof AsyncLongPoll ? (AsyncLongPoll) service : null;
+        try {
+            awaitStateChange = GameService.class.getMethod("awaitStateChange", String.class, long.class, long.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    public void start() {
+        Thread t = new Thread(this::selectLoop, "nio-selector");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        calls.shutdownNow();
+    }
+
+    // -------------------------------------------------------
+    // Selector thread
+    // -------------------------------------------------------
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select();
+
+                Connection c;
+                while ((c = pendingWrites.poll()) != null)
+                    c.flush();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+
+                    if (!key.isValid())
+                        continue;
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    Connection conn = (Connection) key.attachment();
+                    if (key.isReadable())
+                        conn.read();
+                    if (key.isValid() && key.isWritable())
+                        conn.flush();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException ignored) {
+                    // closing anyway
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+
+            Connection conn = new Connection(ch);
+            conn.key = ch.register(selector, SelectionKey.OP_READ, conn);
+        }
+    }
+
+    // -------------------------------------------------------
+    // Calls, on the executor
+    // -------------------------------------------------------
+    private void dispatch(Connection conn, long callId, byte[] body) {
+        Method m;
+        Object[] args;
+
+        try (ObjectInputStream in = NioProtocol.body(body, 0, body.length)) {
+            m = methods.get((String) in.readObject());
+            args = (Object[]) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException | IOException e) {
+            reply(conn, callId, false, new RemoteException("Bad request: " + e));
+            return;
+        }
+
+        if (m == null) {
+            reply(conn, callId, false, new RemoteException("Unknown method"));
+            return;
+        }
+
+        if (longPoll != null && m.equals(awaitStateChange) && isAwaitArgs(args)) {
+            awaitAsync(conn, callId, (String) args[0], (Long) args[1], (Long) args[2]);
+            return;
+        }
+
+        try {
+            reply(conn, callId, true, m.invoke(service, args));
+        } catch (InvocationTargetException e) {
+            reply(conn, callId, false, e.getCause());
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            reply(conn, callId, false, new RemoteException("Bad request: " + e));
+        }
+    }
+
+    // The call thread returns right away; the answer is encoded and sent on
+    // the executor once the change (or the timeout) completes the future
+    private void awaitAsync(Connection conn, long callId, String gameId, long knownVersion, long timeoutMs) {
+        try {
+            longPoll.awaitStateChangeAsync(gameId, knownVersion, timeoutMs)
+                    .whenCompleteAsync((gs, ex) -> {
+                        if (ex == null)
+                            reply(conn, callId, true, gs);
+                        else
+                            reply(conn, callId, false, ex instanceof CompletionException ? ex.getCause() : ex);
+                    }, calls);
+        } catch (RemoteException e) {
+            reply(conn, callId, false, e);
+        } catch (RejectedExecutionException closing) {
+            conn.close();
+        }
+    }
+
+    private static boolean isAwaitArgs(Object[] args) {
+        return args.length == 3 && args[0] instanceof String
+                && args[1] instanceof Long && args[2] instanceof Long;
+    }
+
+    private void reply(Connection conn, long callId, boolean ok, Object value) {
+        byte[] response;
+        try {
+            response = NioProtocol.response(callId, ok, value);
+        } catch (IOException e) {
+            // Result not serializable; report that instead
+            try {
+                response = NioProtocol.response(callId, false, new RemoteException("Cannot encode result: " + e));
+            } catch (IOException impossible) {
+                conn.close();
+                return;
+            }
+        }
+        conn.send(response);
+    }
+
+    // -------------------------------------------------------
+    // One client connection; buffers are only touched by the selector thread
+    // -------------------------------------------------------
+    private final class Connection {
+        final SocketChannel channel;
+        SelectionKey key;
+
+        ByteBuffer in = ByteBuffer.allocate(4096);
+
+        // Filled by call threads, drained by the selector thread
+        final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<>();
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() {
+            try {
+                if (channel.read(in) < 0) {
+                    close();
+                    return;
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+
+            in.flip();
+            while (in.remaining() >= NioProtocol.HEADER) {
+                int len = in.getInt(in.position());
+
+                if (len < Long.BYTES || len > NioProtocol.MAX_FRAME) {
+                    close();
+                    return;
+                }
+                if (in.remaining() < Integer.BYTES + len) {
+                    // Make sure the whole frame will fit
+                    if (in.capacity() < Integer.BYTES + len) {
+                        ByteBuffer bigger = ByteBuffer.allocate(Integer.BYTES + len);
+                        bigger.put(in);
+                        in = bigger;
+                        return;
+                    }
+                    break;
+                }
+
+                in.getInt();
+                long callId = in.getLong();
+                byte[] body = new byte[len - Long.BYTES];
+                in.get(body);
+
+                calls.execute(() -> dispatch(this, callId, body));
+            }
+            in.compact();
+        }
+
+        // From any thread
+        void send(byte[] frame) {
+            out.add(ByteBuffer.wrap(frame));
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        void flush() {
+            if (!key.isValid())
+                return;
+
+            try {
+                ByteBuffer b;
+                while ((b = out.peek()) != null) {
+                    channel.write(b);
+                    if (b.hasRemaining())
+                        break;
+                    out.poll();
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+
+            // Wait for the socket to drain before writing more
+            int ops = out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+            if (key.interestOps() != ops)
+                key.interestOps(ops);
+        }
+
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already gone
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+
+/**
+ * Wire format of the NIO endpoint ({@link NioGameServer}), shared with the
+ * client proxy.
+ *
+ * Every message is a frame [int length][long callId][body], length counting
+ * callId and body. Calls are multiplexed: a connection can have any number
+ * of calls in flight and answers come back in completion order, matched by
+ * callId.
+ *
+ *   request body:  serialized String method key, then Object[] arguments
+ *   response body: byte OK / FAILED, then the serialized result or Throwable
+ */
+public final class NioProtocol {
+
+    public static final byte OK = 0;
+    public static final byte FAILED = 1;
+
+    public static final int HEADER = Integer.BYTES + Long.BYTES;
+    public static final int MAX_FRAME = 1 << 20;
+
+    // Only what GameService takes and returns, plus exceptions and the RMI
+    // stubs of callback listeners, is ever deserialized
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=20;maxarray=100000;"
+                    + "model.*;service.*;java.lang.*;java.util.*;java.io.IOException;"
+                    + "java.lang.reflect.Proxy;jdk.proxy*;com.sun.proxy.*;java.rmi.**;sun.rmi.**;!*");
+
+    private NioProtocol() {
+    }
+
+    // "makeMove(java.lang.String,model.Move)"; overloads get distinct keys
+    public static String methodKey(Method m) {
+        StringBuilder sb = new StringBuilder(m.getName()).append('(');
+        Class<?>[] params = m.getParameterTypes();
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(params[i].getName());
+        }
+        return sb.append(')').toString();
+    }
+
+    public static byte[] request(long callId, String methodKey, Object[] args) throws IOException {
+        return frame(callId, -1, methodKey, args == null ? new Object[0] : args);
+    }
+
+    public static byte[] response(long callId, boolean ok, Object value) throws IOException {
+        return frame(callId, ok ? OK : FAILED, value);
+    }
+
+    // A whole frame, ready to be written; status < 0 for none
+    private static byte[] frame(long callId, int status, Object... objects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        // Room for the header, filled in below
+        bytes.write(new byte[HEADER]);
+        if (status >= 0)
+            bytes.write(status);
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for (Object o : objects)
+                out.writeObject(o);
+        }
+
+        byte[] frame = bytes.toByteArray();
+        putInt(frame, 0, frame.length - Integer.BYTES);
+        putLong(frame, Integer.BYTES, callId);
+        return frame;
+    }
+
+    public static ObjectInputStream body(byte[] buf, int off, int len) throws IOException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf, off, len));
+        in.setObjectInputFilter(FILTER);
+        return in;
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        for (int i = 3; i >= 0; i--, v >>>= 8)
+            b[off + i] = (byte) v;
+    }
+
+    private static void putLong(byte[] b, int off, long v) {
+        for (int i = 7; i >= 0; i--, v >>>= 8)
+            b[off + i] = (byte) v;
+    }
+}
@@ -0,0 +1,53 @@
+package server;
+
+import service.GameIdAllocator;
+
+/**
+ * Id allocator of one shard: draws ids from the underlying allocator and keeps
+ * only those the ring assigns to this shard, handing the others straight back.
+ * With N shards that takes N draws on average.
+ */
+public class OwnedIdAllocator implements GameIdAllocator {
+
+    // Give up instead of spinning once this shard's part of the id space is used up
+    private static final int MAX_DRAWS_PER_SHARD = 64;
+
+    private final GameIdAllocator ids;
+    private final ConsistentHashRing ring;
+    private final String shard;
+
+    public OwnedIdAllocator(GameIdAllocator ids, ConsistentHashRing ring, String shard) {
+        if (!ring.shards().contains(shard))
+            throw new IllegalArgumentException("Shard " + shard + " is not on the ring");
+
+        this.ids = ids;
+        this.ring = ring;
+        this.shard = shard;
+    }
+
+    @Override
+    public String allocate() {
+        int maxDraws = MAX_DRAWS_PER_SHARD * ring.shards().size();
+
+        for (int i = 0; i < maxDraws; i++) {
+            String id = ids.allocate();
+
+            if (shard.equals(ring.shardFor(id)))
+                return id;
+
+            ids.release(id);
+        }
+
+        throw new IllegalStateException("No free game ids on shard " + shard);
+    }
+
+    @Override
+    public void release(String gameId) {
+        ids.release(gameId);
+    }
+
+    @Override
+    public void reserve(String gameId) {
+        ids.reserve(gameId);
+    }
+}
@@ -0,0 +1,244 @@
+package server;
+
+import model.Board;
+import model.GameMatch;
+import model.GameMove;
+import model.GameState;
+import model.Move;
+import model.MoveResult;
+import model.Player;
+import model.PlayerProfile;
+import service.GameListener;
+import service.GameService;
+import service.SpectatorListener;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Front-end {@link GameService} for a sharded deployment. Calls about an
+ * existing game go to the shard that owns its id on the consistent hash ring;
+ * new games are spread round-robin over the shards (each shard only hands out
+ * ids it owns). Matchmaking keeps its own queue of waiting games across all
+ * shards, so two players are paired even if their games would land on
+ * different shards.
+ */
+public class ShardRouter extends UnicastRemoteObject implements GameService {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ConsistentHashRing ring;
+    private final Map<String, GameService> shards;
+    private final List<GameService> shardList;
+
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    // Ids of games created through findOrCreateGame that may still be waiting
+    private final Queue<String> waiting = new ConcurrentLinkedQueue<>();
+
+    public ShardRouter(ConsistentHashRing ring, Map<String, GameService> shards) throws RemoteException {
+        super();
+
+        for (String name : ring.shards()) {
+            if (!shards.containsKey(name))
+                throw new IllegalArgumentException("No service for shard " + name);
+        }
+
+        this.ring = ring;
+        this.shards = shards;
+        this.shardList = new ArrayList<>(shards.values());
+    }
+
+    private GameService owner(String gameId) {
+        return shards.get(ring.shardFor(gameId));
+    }
+
+    private GameService nextShard() {
+        return shardList.get(Math.floorMod(nextShard.getAndIncrement(), shardList.size()));
+    }
+
+    // -------------------------------------------------------
+    // Matchmaking
+    // -------------------------------------------------------
+    @Override
+    public GameMatch findOrCreateGame(String playerName) throws RemoteException {
+        String gameId;
+
+        while ((gameId = waiting.poll()) != null) {
+            try {
+                return owner(gameId).joinMatch(gameId, playerName);
+            } catch (RemoteException gone) {
+                // Joined by id meanwhile, or evicted: try the next one
+            }
+        }
+
+        GameMatch created = nextShard().createMatch(playerName, Board.CLASSIC_SIZE, Board.CLASSIC_SIZE);
+
+        waiting.offer(created.getGameId());
+        return created;
+    }
+
+    // Never waits for anyone, so it does not touch the matchmaking queue
+    @Override
+    public GameMatch playAgainstAi(String playerName) throws RemoteException {
+        return nextShard().playAgainstAi(playerName);
+    }
+
+    // Every shard rates the games it hosts. The record is the sum over all
+    // shards; the rating is taken from the shard the player played most on.
+    @Override
+    public PlayerProfile getProfile(String playerName) throws RemoteException {
+        PlayerProfile best = null;
+        int wins = 0, losses = 0, draws = 0;
+
+        for (GameService shard : shardList) {
+            PlayerProfile p = shard.getProfile(playerName);
+            wins += p.getWins();
+            losses += p.getLosses();
+            draws += p.getDraws();
+            if (best == null || p.getGames() > best.getGames())
+                best = p;
+        }
+        return new PlayerProfile(playerName, best.getRating(), wins, losses, draws);
+    }
+
+    @Override
+    public String createGame(String playerName) throws RemoteException {
+        return nextShard().createGame(playerName);
+    }
+
+    @Override
+    public String createGame(String playerName, int boardSize, int winLength) throws RemoteException {
+        return nextShard().createGame(playerName, boardSize, winLength);
+    }
+
+    @Override
+    public GameMatch createMatch(String playerName, int boardSize, int winLength) throws RemoteException {
+        return nextShard().createMatch(playerName, boardSize, winLength);
+    }
+
+    @Override
+    public Player joinGame(String gameId, String playerName) throws RemoteException {
+        return owner(gameId).joinGame(gameId, playerName);
+    }
+
+    @Override
+    public GameMatch joinMatch(String gameId, String playerName) throws RemoteException {
+        return owner(gameId).joinMatch(gameId, playerName);
+    }
+
+    @Override
+    public List<String> listOpenGames() throws RemoteException {
+        List<String> open = new ArrayList<>();
+        for (GameService shard : shardList)
+            open.addAll(shard.listOpenGames());
+        return open;
+    }
+
+    // -------------------------------------------------------
+    // Per-Game Calls, forwarded to the owning shard
+    // -------------------------------------------------------
+    @Override
+    public GameState makeMove(String gameId, Move move) throws RemoteException {
+        return owner(gameId).makeMove(gameId, move);
+    }
+
+    @Override
+    public MoveResult submitMove(String gameId, Move move) throws RemoteException {
+        return owner(gameId).submitMove(gameId, move);
+    }
+
+    @Override
+    public GameState getGameState(String gameId) throws RemoteException {
+        return owner(gameId).getGameState(gameId);
+    }
+
+    @Override
+    public boolean heartbeat(String gameId, int seat, long token) throws RemoteException {
+        return owner(gameId).heartbeat(gameId, seat, token);
+    }
+
+    // -------------------------------------------------------
+    // Batches, split by owning shard: one call per shard involved
+    // -------------------------------------------------------
+    @Override
+    public Map<String, GameState> getGameStates(Collection<String> gameIds) throws RemoteException {
+        Map<GameService, List<String>> byShard = new LinkedHashMap<>();
+        for (String gameId : gameIds)
+            byShard.computeIfAbsent(owner(gameId), s -> new ArrayList<>()).add(gameId);
+
+        Map<String, GameState> found = new LinkedHashMap<>();
+        for (Map.Entry<GameService, List<String>> s : byShard.entrySet())
+            found.putAll(s.getKey().getGameStates(s.getValue()));
+
+        // Back in request order
+        Map<String, GameState> states = new LinkedHashMap<>();
+        for (String gameId : gameIds) {
+            GameState gs = found.get(gameId);
+            if (gs != null)
+                states.put(gameId, gs);
+        }
+        return states;
+    }
+
+    @Override
+    public List<MoveResult> makeMoves(List<GameMove> moves) throws RemoteException {
+        // Moves keep their relative order within a shard, which is all that
+        // matters: moves of one game always go to the same shard
+        Map<GameService, List<Integer>> byShard = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++)
+            byShard.computeIfAbsent(owner(moves.get(i).getGameId()), s -> new ArrayList<>()).add(i);
+
+        MoveResult[] results = new MoveResult[moves.size()];
+        for (Map.Entry<GameService, List<Integer>> s : byShard.entrySet()) {
+            List<GameMove> batch = new ArrayList<>(s.getValue().size());
+            for (int i : s.getValue())
+                batch.add(moves.get(i));
+
+            List<MoveResult> shardResults = s.getKey().makeMoves(batch);
+            for (int k = 0; k < shardResults.size(); k++)
+                results[s.getValue().get(k)] = shardResults.get(k);
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    @Override
+    public List<MoveResult> getChangesSince(String gameId, long version) throws RemoteException {
+        return owner(gameId).getChangesSince(gameId, version);
+    }
+
+    @Override
+    public GameState awaitStateChange(String gameId, long knownVersion, long timeoutMs) throws RemoteException {
+        return owner(gameId).awaitStateChange(gameId, knownVersion, timeoutMs);
+    }
+
+    // The listener stub is passed on, the shard calls the client directly
+    @Override
+    public void subscribe(String gameId, GameListener listener) throws RemoteException {
+        owner(gameId).subscribe(gameId, listener);
+    }
+
+    @Override
+    public void unsubscribe(String gameId, GameListener listener) throws RemoteException {
+        owner(gameId).unsubscribe(gameId, listener);
+    }
+
+    @Override
+    public GameState watchGame(String gameId, SpectatorListener listener) throws RemoteException {
+        return owner(gameId).watchGame(gameId, listener);
+    }
+
+    @Override
+    public void stopWatching(String gameId, SpectatorListener listener) throws RemoteException {
+        owner(gameId).stopWatching(gameId, listener);
+    }
+}
@@ -0,0 +1,19 @@
+package service;
+
+import model.GameState;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implemented by services that can answer awaitStateChange without parking
+ * a thread. Transports that do not need a thread per call (the NIO endpoint)
+ * use it to reply once the future completes.
+ */
+public interface AsyncLongPoll {
+
+    // Completes with the state once its version is newer than knownVersion,
+    // or with the current state when the timeout expires
+    CompletableFuture<GameState> awaitStateChangeAsync(String gameId, long knownVersion, long timeoutMs)
+            throws RemoteException;
+}
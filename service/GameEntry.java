@@ -0,0 +1,225 @@
+package service;
+
+import model.GameState;
+import model.Move;
+import model.MoveResult;
+import model.Player;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Server-side record of one game: the shared {@link GameState} plus
+ * bookkeeping that never goes over the wire. The state's monitor is the
+ * game's lock and guards everything in here, except the published snapshot,
+ * which readers take without locking.
+ */
+class GameEntry {
+
+    // Moves that name only a player id are refused for seats that have a
+    // session: ids are visible to the opponent and to spectators. Legacy
+    // clients that cannot send their token need this explicit opt-out.
+    private static final boolean ID_ONLY_MOVES = Boolean.getBoolean("game.sessions.allowIdOnly");
+
+    private static final SecureRandom TOKENS = new SecureRandom();
+
+    final GameState state;
+
+    // Read-only copy of state as of its last change; what clients get to see
+    private volatile GameState snapshot;
+
+    // Session token per seat, 0 if none was issued (seats restored from a
+    // journal written before tokens were journaled). Atomic so that
+    // heartbeats can check them without the lock.
+    private final AtomicLongArray tokens = new AtomicLongArray(2);
+
+    // Time of the last heartbeat per seat, 0 until the seat sends its first.
+    // Written without the lock, see HeartbeatMonitor.
+    private final AtomicLongArray lastSeen = new AtomicLongArray(2);
+
+    // Seat whose turn it is; the state's currentTurnPlayerId, as an index
+    private int turnSeat;
+
+    // Long-polls waiting for the next change, see wakeWaiters()
+    private final Queue<CompletableFuture<GameState>> waiters = new ConcurrentLinkedQueue<>();
+
+    // Every move applied so far, and every status change that was not a move
+    // (join, forfeit), in version order
+    private final List<MoveResult> moves = new ArrayList<>();
+
+    // Wall-clock time of the last create/join/move, read by the reaper
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    // Creator's rating and the time the game entered matchmaking
+    private volatile int waitRating;
+    private volatile long waitingSince;
+
+    GameEntry(GameState state) {
+        this.state = state;
+        this.turnSeat = Math.max(0, indexOf(state.getCurrentTurnPlayerId()));
+        this.snapshot = state.snapshot();
+    }
+
+    GameState snapshot() {
+        return snapshot;
+    }
+
+    // Caller holds the state's monitor and has just changed it
+    void publish() {
+        snapshot = state.snapshot();
+    }
+
+    // -------------------------------------------------------
+    // Long-polls, no lock needed
+    // -------------------------------------------------------
+
+    // Parks a long-poll until the next wakeWaiters(). The caller checks the
+    // snapshot again afterwards: a change published just before the add
+    // has already woken everyone else.
+    void addWaiter(CompletableFuture<GameState> waiter) {
+        waiters.add(waiter);
+        waiter.whenComplete((gs, ex) -> waiters.remove(waiter));
+    }
+
+    // Completes every parked long-poll with the current snapshot; after a
+    // change was published or the game was evicted
+    void wakeWaiters() {
+        CompletableFuture<GameState> waiter;
+        while ((waiter = waiters.poll()) != null)
+            waiter.complete(snapshot);
+    }
+
+    long lastActivity() {
+        return lastActivity;
+    }
+
+    void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    void queued(int rating) {
+        waitRating = rating;
+        waitingSince = System.currentTimeMillis();
+    }
+
+    int waitRating() {
+        return waitRating;
+    }
+
+    long waitingSince() {
+        return waitingSince;
+    }
+
+    String gameId() {
+        return state.getGameId();
+    }
+
+    // -------------------------------------------------------
+    // Seats and sessions, caller holds the state's monitor
+    // -------------------------------------------------------
+
+    // Issues the session token of a seat that was just taken
+    long openSession(int seat) {
+        long token;
+        do {
+            token = TOKENS.nextLong();
+        } while (token == 0);
+
+        tokens.set(seat, token);
+        return token;
+    }
+
+    long token(int seat) {
+        return tokens.get(seat);
+    }
+
+    // Journal replay: the seat keeps the token it had before the restart
+    void restoreSession(int seat, long token) {
+        tokens.set(seat, token);
+    }
+
+    // Does the token belong to the seat? No lock needed.
+    boolean validSession(int seat, long token) {
+        return seat >= 0 && seat < 2 && token != 0 && tokens.get(seat) == token;
+    }
+
+    // Records a heartbeat; true if it is the seat's first
+    boolean seen(int seat) {
+        return lastSeen.getAndSet(seat, System.currentTimeMillis()) == 0;
+    }
+
+    // A move counts as a heartbeat, but only for seats that send heartbeats
+    // anyway; others are not watched at all
+    void seenIfWatched(int seat) {
+        if (lastSeen.get(seat) != 0)
+            lastSeen.set(seat, System.currentTimeMillis());
+    }
+
+    long lastSeen(int seat) {
+        return lastSeen.get(seat);
+    }
+
+    // Seat of the player who sent the move, -1 if it is not one of the players
+    // or the session token does not match. By player id only for a seat that
+    // has no session (restored from a journal that predates them), or where
+    // id-only moves are explicitly allowed.
+    int seatOf(Move m) {
+        int seat = m.getSeat();
+        int seats = state.getPlayers().size();
+
+        if (seat >= 0 && seat < seats && tokens.get(seat) != 0)
+            return tokens.get(seat) == m.getToken() ? seat : -1;
+
+        int byId = indexOf(m.getPlayerId());
+        if (byId >= 0 && tokens.get(byId) != 0 && !ID_ONLY_MOVES)
+            return -1;
+
+        return byId;
+    }
+
+    int turnSeat() {
+        return turnSeat;
+    }
+
+    // Hands the turn to the other seat, if it is taken
+    void passTurn() {
+        List<Player> players = state.getPlayers();
+        if (players.size() < 2)
+            return;
+
+        turnSeat = 1 - turnSeat;
+        state.setCurrentTurnPlayerId(players.get(turnSeat).getId());
+    }
+
+    // Seat of a player by id, -1 if not in the game. Only for callers that
+    // know who moved (the journal), never for client input.
+    int indexOf(String playerId) {
+        if (playerId != null) {
+            List<Player> players = state.getPlayers();
+            for (int i = 0; i < players.size(); i++) {
+                if (players.get(i).getId().equals(playerId))
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    // Caller holds the state's monitor
+    void recordMove(MoveResult r) {
+        moves.add(r);
+    }
+
+    // Moves newer than the given version, oldest first. Caller holds the state's monitor.
+    List<MoveResult> movesSince(long version) {
+        int from = moves.size();
+        while (from > 0 && moves.get(from - 1).getVersion() > version)
+            from--;
+
+        return new ArrayList<>(moves.subList(from, moves.size()));
+    }
+}
@@ -0,0 +1,189 @@
+package service;
+
+import model.GameState;
+
+import java.rmi.NoSuchObjectException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes game state changes to subscribed {@link GameListener}s.
+ *
+ * Callbacks run on a small pool so a slow or dead client never blocks the RMI
+ * thread that made the move. Pushes are coalesced per game: only the newest
+ * pending state is kept and at most one delivery task per game is queued, so
+ * the queue is bounded by the number of games and no push is ever discarded
+ * (the final state of a game always goes out).
+ *
+ * The callbacks of one push run side by side on a per-task executor, so a
+ * slow subscriber does not hold back the others of the game. Each is bounded
+ * by a timeout: a client that stops reading is dropped and the thread making
+ * its call is abandoned.
+ *
+ * A failed callback is retried with the newest state after a short delay; a
+ * listener is dropped after several failures in a row, or right away if its
+ * object is gone on the client (NoSuchObjectException).
+ */
+class GameEventDispatcher {
+
+    private static final int THREADS =
+            Integer.getInteger("game.dispatch.threads", 4);
+    private static final int MAX_FAILURES =
+            Integer.getInteger("game.dispatch.maxFailures", 3);
+    private static final long RETRY_MS =
+            Long.getLong("game.dispatch.retryMs", 500);
+    private static final long CALL_TIMEOUT_MS =
+            Long.getLong("game.dispatch.callTimeoutMs", 5000);
+
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor executor;
+
+    // Runs the remote calls themselves, so a hung one can be abandoned
+    private final ExecutorService calls = VirtualThreads.newPerTaskExecutor("game-dispatch-call");
+
+    GameEventDispatcher() {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(THREADS, r -> {
+            Thread t = new Thread(r, "game-dispatch-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Subscribers of one game and the state waiting to be pushed to them
+    private static final class Topic {
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        final AtomicReference<GameState> pending = new AtomicReference<>();
+        final AtomicBoolean queued = new AtomicBoolean();
+    }
+
+    private static final class Subscriber {
+        final GameListener listener;
+
+        // Newest version delivered, and failed calls in a row; only touched
+        // by the (single) delivery task of the game
+        long delivered = -1;
+        int failures;
+
+        Subscriber(GameListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    void subscribe(String gameId, GameListener listener) {
+        topics.computeIfAbsent(gameId, id -> new Topic()).subscribers.add(new Subscriber(listener));
+    }
+
+    void unsubscribe(String gameId, GameListener listener) {
+        Topic t = topics.get(gameId);
+        if (t != null)
+            t.subscribers.removeIf(s -> s.listener.equals(listener));
+    }
+
+    // Drop every subscription of a game that no longer exists
+    void clear(String gameId) {
+        topics.remove(gameId);
+    }
+
+    void close() {
+        executor.shutdownNow();
+        calls.shutdownNow();
+    }
+
+    // Push the given state to every subscriber of the game. Replaces any state
+    // of the game still waiting to go out.
+    void publish(GameState gs) {
+        Topic t = topics.get(gs.getGameId());
+
+        if (t == null || t.subscribers.isEmpty())
+            return;
+
+        t.pending.set(gs);
+        schedule(t, 0);
+    }
+
+    private void schedule(Topic t, long delayMs) {
+        if (!t.queued.compareAndSet(false, true))
+            return; // the queued task will pick up the newest state
+
+        if (executor.isShutdown())
+            return;
+
+        if (delayMs == 0)
+            executor.execute(() -> deliver(t));
+        else
+            executor.schedule(() -> deliver(t), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void deliver(Topic t) {
+        GameState gs = t.pending.getAndSet(null);
+        boolean retry = false;
+        boolean newer = false;
+
+        if (gs != null) {
+            // Start every call first, then collect them against one deadline
+            Map<Subscriber, Future<?>> inFlight = new LinkedHashMap<>();
+            for (Subscriber s : t.subscribers) {
+                if (s.delivered >= gs.getVersion())
+                    continue;
+                try {
+                    inFlight.put(s, calls.submit(() -> {
+                        s.listener.onStateChanged(gs);
+                        return null;
+                    }));
+                } catch (RejectedExecutionException closing) {
+                    return;
+                }
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CALL_TIMEOUT_MS);
+            for (Map.Entry<Subscriber, Future<?>> f : inFlight.entrySet()) {
+                Subscriber s = f.getKey();
+                try {
+                    f.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    s.delivered = gs.getVersion();
+                    s.failures = 0;
+                } catch (TimeoutException hung) {
+                    // Interrupting rarely unblocks a socket read; the thread
+                    // is left to finish or fail on its own
+                    f.getValue().cancel(true);
+                    t.subscribers.remove(s);
+                } catch (InterruptedException closing) {
+                    Thread.currentThread().interrupt();
+                    inFlight.values().forEach(c -> c.cancel(true));
+                    return;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof NoSuchObjectException) {
+                        // Unexported on the client, it will never answer again
+                        t.subscribers.remove(s);
+                    } else if (++s.failures >= MAX_FAILURES) {
+                        t.subscribers.remove(s);
+                    } else {
+                        retry = true;
+                    }
+                }
+            }
+
+            // Try again later unless something newer is on its way anyway
+            if (retry)
+                newer = !t.pending.compareAndSet(null, gs);
+        }
+
+        t.queued.set(false);
+        if (t.pending.get() != null)
+            schedule(t, retry && !newer ? RETRY_MS : 0);
+    }
+}
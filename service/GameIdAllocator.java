@@ -0,0 +1,36 @@
+package service;
+
+/**
+ * Hands out game ids and takes them back when a game is evicted.
+ *
+ * Selected with the system property game.ids:
+ *   short    (default) random-looking numeric ids from game.ids.min..game.ids.max,
+ *            1000..9999 unless configured
+ *   sequence compact base-36 ids from a counter, no practical limit
+ */
+public interface GameIdAllocator {
+
+    // Next free id; throws IllegalStateException when the id space is used up
+    String allocate();
+
+    // The game with this id is gone, the id may be handed out again
+    void release(String gameId);
+
+    // Mark an id as taken without allocating it (a game restored at startup)
+    void reserve(String gameId);
+
+    static GameIdAllocator fromSystemProperties() {
+        String kind = System.getProperty("game.ids", "short");
+
+        switch (kind) {
+            case "short":
+                return new ShortIdAllocator(
+                        Integer.getInteger("game.ids.min", 1000),
+                        Integer.getInteger("game.ids.max", 9999));
+            case "sequence":
+                return new SequenceIdAllocator();
+            default:
+                throw new IllegalArgumentException("Unknown game.ids allocator: " + kind);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package service;
+
+import model.GameState;
+import model.Player;
+
+/**
+ * Write-ahead record of every change to the games, appended by
+ * {@link GameServiceImpl} right after the change was applied in memory and
+ * while it still holds the game's lock, so events of one game are journaled
+ * in order. Implementations must not block the caller on I/O.
+ */
+interface GameJournal {
+
+    // Journaling disabled
+    GameJournal NONE = new GameJournal() {
+        @Override public void created(GameState gs, long token) { }
+        @Override public void joined(String gameId, Player p, long token) { }
+        @Override public void moved(String gameId, Player mover, int row, int col) { }
+        @Override public void forfeited(String gameId, Player quitter) { }
+        @Override public void evicted(String gameId) { }
+        @Override public void close() { }
+    };
+
+    // A new game with its creator as the only player. Session tokens are
+    // journaled too, so clients keep their seats across a restart.
+    void created(GameState gs, long token);
+
+    void joined(String gameId, Player p, long token);
+
+    void moved(String gameId, Player mover, int row, int col);
+
+    // The player stopped sending heartbeats and lost the game
+    void forfeited(String gameId, Player quitter);
+
+    void evicted(String gameId);
+
+    // Flush and stop the writer
+    void close();
+}
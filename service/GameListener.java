@@ -0,0 +1,17 @@
+package service;
+
+import model.GameState;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Callback exported by a client and registered through
+ * {@link GameService#subscribe(String, GameListener)}. The server pushes the
+ * game state to it whenever the game changes, so clients no longer need to poll.
+ */
+public interface GameListener extends Remote {
+
+    // Called by the server after every join / move in the subscribed game
+    void onStateChanged(GameState state) throws RemoteException;
+}
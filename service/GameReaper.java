@@ -0,0 +1,124 @@
+package service;
+
+import model.GameStatus;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Background eviction of dead games with a TTL per {@link GameStatus}:
+ * finished games, games in progress where nobody moved for a while, and games
+ * that never found a second player.
+ *
+ * Each game has a deadline in a DelayQueue, so the reaper only wakes up when
+ * something may have expired and never scans the registry. When a deadline
+ * fires the game is re-checked against its latest activity and either
+ * evicted or rescheduled.
+ */
+class GameReaper {
+
+    private static final long FINISHED_TTL_MS =
+            Long.getLong("game.ttl.finished", 60) * 1000;
+    private static final long IDLE_TTL_MS =
+            Long.getLong("game.ttl.idle", 600) * 1000;
+    private static final long WAITING_TTL_MS =
+            Long.getLong("game.ttl.waiting", 300) * 1000;
+
+    private final GameRegistry games;
+    private final Consumer<GameEntry> onEvict;
+
+    private final DelayQueue<Deadline> deadlines = new DelayQueue<>();
+    private final Thread thread;
+
+    // Evictions are counted by ServiceMetrics, per status, through onEvict
+    GameReaper(GameRegistry games, Consumer<GameEntry> onEvict) {
+        this.games = games;
+        this.onEvict = onEvict;
+
+        thread = new Thread(this::run, "game-reaper");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void close() {
+        thread.interrupt();
+    }
+
+    // (Re)arm the deadline of a game, call after it was created or changed status
+    void schedule(GameEntry e) {
+        deadlines.offer(new Deadline(e, e.lastActivity() + ttl(e.state.getStatus())));
+    }
+
+    private static long ttl(GameStatus status) {
+        switch (status) {
+            case FINISHED:           return FINISHED_TTL_MS;
+            case IN_PROGRESS:        return IDLE_TTL_MS;
+            case WAITING_FOR_PLAYER: return WAITING_TTL_MS;
+            default:                 throw new IllegalArgumentException(status.name());
+        }
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                expire(deadlines.take().entry);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void expire(GameEntry e) {
+        // Already evicted through an earlier deadline
+        if (games.get(e.gameId()) != e)
+            return;
+
+        synchronized (e.state) {
+            long expiresAt = e.lastActivity() + ttl(e.state.getStatus());
+
+            if (System.currentTimeMillis() < expiresAt) {
+                // Something happened since this deadline was set
+                deadlines.offer(new Deadline(e, expiresAt));
+                return;
+            }
+
+            // Someone else (the heartbeat monitor) may have evicted it since
+            // the check above, and its id may be taken by a new game by now
+            if (!games.remove(e.gameId(), e))
+                return;
+
+            // Let long-pollers return instead of waiting out their timeout
+            e.wakeWaiters();
+        }
+
+        onEvict.accept(e);
+    }
+
+    // -------------------------------------------------------
+    // Deadline
+    // -------------------------------------------------------
+    private static final class Deadline implements Delayed {
+
+        final GameEntry entry;
+        final long atMillis;
+
+        Deadline(GameEntry entry, long atMillis) {
+            this.entry = entry;
+            this.atMillis = atMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(atMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(atMillis, ((Deadline) o).atMillis);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package service;
+
+import model.GameStatus;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent index of all live games keyed by game id.
+ *
+ * The map itself is lock-free for readers and striped for writers; mutations
+ * of a single game are guarded by that game's own monitor, so work on
+ * unrelated games never contends on a shared lock.
+ */
+class GameRegistry {
+
+    private final ConcurrentHashMap<String, GameEntry> games = new ConcurrentHashMap<>();
+
+    // Matchmaking queues: games waiting for a second player, by the creator's
+    // rating. Entries are removed lazily, pollWaiting() skips games that got
+    // joined through joinGame() or were removed in the meantime.
+    private final RatingQueues waiting = new RatingQueues();
+
+    // Ids of all games still waiting for a player (backs listOpenGames)
+    private final Set<String> open = ConcurrentHashMap.newKeySet();
+
+    GameEntry get(String gameId) {
+        return games.get(gameId);
+    }
+
+    // Same as get() but fails the remote call for unknown ids
+    GameEntry require(String gameId) throws RemoteException {
+        GameEntry e = games.get(gameId);
+
+        if (e == null)
+            throw new RemoteException("Game not found");
+
+        return e;
+    }
+
+    boolean contains(String gameId) {
+        return games.containsKey(gameId);
+    }
+
+    // Returns false if the id is already taken
+    boolean register(GameEntry e) {
+        return games.putIfAbsent(e.gameId(), e) == null;
+    }
+
+    void remove(String gameId) {
+        games.remove(gameId);
+        open.remove(gameId);
+    }
+
+    // Removes the game only if the id still maps to this entry; false if it
+    // is gone already (the id may now belong to a newer game)
+    boolean remove(String gameId, GameEntry e) {
+        if (!games.remove(gameId, e))
+            return false;
+
+        open.remove(gameId);
+        return true;
+    }
+
+    // Weakly consistent view, safe to iterate while other threads mutate
+    Collection<GameEntry> games() {
+        return games.values();
+    }
+
+    int size() {
+        return games.size();
+    }
+
+    // -------------------------------------------------------
+    // Status Transitions
+    // -------------------------------------------------------
+
+    // A registered game starts waiting for its second player. Only classic
+    // boards are handed out by matchmaking, variants are joined by id.
+    void waitingForPlayer(GameEntry e, int rating) {
+        open.add(e.gameId());
+
+        if (e.state.getBoard().isClassic())
+            waiting.offer(e, rating);
+    }
+
+    // The game got its second player
+    void started(GameEntry e) {
+        open.remove(e.gameId());
+    }
+
+    // Best-fitting game (still) waiting for a player of that rating, or null
+    GameEntry pollWaiting(int rating) {
+        return waiting.poll(rating,
+                e -> e.snapshot().getStatus() == GameStatus.WAITING_FOR_PLAYER && games.get(e.gameId()) == e);
+    }
+
+    int waitingDepth() {
+        return waiting.depth();
+    }
+
+    List<String> openGameIds() {
+        return new ArrayList<>(open);
+    }
+}
@@ -1,14 +1,19 @@
 package service;
 
 import model.GameMatch;
+import model.GameMove;
 import model.GameState;
 import model.Move;
+import model.MoveResult;
 import model.Player;
+import model.PlayerProfile;
 
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 public interface GameService extends Remote {
@@ -16,6 +21,11 @@ public interface GameService extends Remote {
     String createGame(String playerName) throws RemoteException;
 
 
+    // Create a game on a boardSize x boardSize board where winLength in a row wins
+    // (e.g. 15 / 5 for Gomoku). Such games are joined by id, not through matchmaking.
+    String createGame(String playerName, int boardSize, int winLength) throws RemoteException;
+
+
     // Join an existing game. Returns Player object assigned to joined player (with symbol).
     Player joinGame(String gameId, String playerName) throws RemoteException;
 
@@ -28,9 +38,75 @@ public interface GameService extends Remote {
     GameState makeMove(String gameId, Move move) throws RemoteException;
 
 
+    // Make a move. Returns only the change (cell, symbol, next turn, status).
+    MoveResult submitMove(String gameId, Move move) throws RemoteException;
+
+
     // Get current game state
     GameState getGameState(String gameId) throws RemoteException;
 
+
+    // Current state of many games in one call, keyed by id in request order.
+    // Unknown ids are left out.
+    Map<String, GameState> getGameStates(Collection<String> gameIds) throws RemoteException;
+
+
+    // Apply many moves in one call, in order. One result per move, in the same
+    // order; a refused move gives a rejected result instead of failing the batch.
+    List<MoveResult> makeMoves(List<GameMove> moves) throws RemoteException;
+
+
+    // Moves made after the given version, oldest first. A join or forfeit
+    // comes as a result without a cell (MoveResult.isStatusChange()).
+    List<MoveResult> getChangesSince(String gameId, long version) throws RemoteException;
+
+
+    // Block until the game's version is newer than knownVersion or the timeout
+    // expires, then return the current state (long-poll alternative to subscribe)
+    GameState awaitStateChange(String gameId, long knownVersion, long timeoutMs) throws RemoteException;
+
     // *** NEW METHOD FOR AUTOMATCHING ***
     GameMatch findOrCreateGame(String playerName) throws RemoteException;
+
+
+    // Start a classic game against the server's perfect-play AI. The caller is
+    // 'X' and moves first; the AI answers within the same call as each move.
+    GameMatch playAgainstAi(String playerName) throws RemoteException;
+
+
+    // Same as createGame / joinGame, but returns the seat and session token
+    // to move with, see Move(GameMatch, int, int)
+    GameMatch createMatch(String playerName, int boardSize, int winLength) throws RemoteException;
+
+    GameMatch joinMatch(String gameId, String playerName) throws RemoteException;
+
+
+    // Tells the server the player in the seat is still there; send every few
+    // seconds with the session of a GameMatch. Once a seat has sent one, going
+    // silent for the grace period forfeits the game. Returns false when the
+    // game is over and heartbeats can stop.
+    boolean heartbeat(String gameId, int seat, long token) throws RemoteException;
+
+
+    // Rating and win/loss/draw record of a player. Matchmaking pairs players
+    // of similar rating; only games between two people are rated.
+    PlayerProfile getProfile(String playerName) throws RemoteException;
+
+
+    // Register a callback that is pushed the game state on every change
+    void subscribe(String gameId, GameListener listener) throws RemoteException;
+
+
+    // Stop pushing state changes of the game to the callback
+    void unsubscribe(String gameId, GameListener listener) throws RemoteException;
+
+
+    // Watch a game without playing in it. Returns the current state; every
+    // later move is pushed to the listener. Slow watchers get snapshots
+    // instead of moves and are eventually dropped.
+    GameState watchGame(String gameId, SpectatorListener listener) throws RemoteException;
+
+
+    // Stop pushing moves of the game to the spectator
+    void stopWatching(String gameId, SpectatorListener listener) throws RemoteException;
 }
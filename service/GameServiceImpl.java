@@ -1,34 +1,113 @@
 package service;
 
+import metrics.MethodStats;
+import metrics.ServiceMetrics;
 import model.*; // Assuming GameMatch, GameState, Player, Move, GameStatus are here
+import java.io.IOException;
+import java.nio.file.Path;
+import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.*;
-
-public class GameServiceImpl extends UnicastRemoteObject implements GameService {
-
-    private final Map<String, GameState> games = new HashMap<>();
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class GameServiceImpl extends UnicastRemoteObject implements GameService, AsyncLongPoll, AutoCloseable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Upper bound for a single awaitStateChange call
+    private static final long MAX_AWAIT_MS = 60_000;
+
+    // Upper bound for the number of games / moves in one batch call
+    private static final int MAX_BATCH = 1000;
+
+    // Longest player name accepted; names are journaled and kept per profile
+    private static final int MAX_NAME_LENGTH = Integer.getInteger("game.maxNameLength", 64);
+
+    // Matchmaking games nobody joined within this time get the AI as opponent
+    // (0 = never)
+    private static final long AI_FILL_MS = Long.getLong("game.ai.fillAfterMs", 0);
+
+    // How often changed profiles are written out, see openProfiles()
+    private static final long PROFILE_SAVE_SECONDS = 30;
+
+    // No service-wide lock: the registry is concurrent and every mutation of a
+    // game happens under that game's own monitor (its GameState)
+    private final GameRegistry games = new GameRegistry();
+    private final GameEventDispatcher dispatcher = new GameEventDispatcher();
+    private final SpectatorHub spectators = new SpectatorHub();
+    private final GameIdAllocator ids;
+
+    // Write-ahead journal, off unless openJournal() is called
+    private volatile GameJournal journal = GameJournal.NONE;
+
+    // Ratings and records by player name; in memory unless openProfiles() is called
+    private final ProfileStore profiles = new ProfileStore();
+    private ScheduledExecutorService profileSaver;
+
+    // Evicts finished, idle and abandoned games in the background
+    private final GameReaper reaper = new GameReaper(games, this::evicted);
+
+    // Forfeits games whose players stopped sending heartbeats
+    private final HeartbeatMonitor heartbeats = new HeartbeatMonitor(games, this::silent);
+
+    // Seats lonely matchmaking games with the AI, see AI_FILL_MS
+    private final ScheduledExecutorService aiFiller = AI_FILL_MS > 0
+            ? Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ai-filler");
+                t.setDaemon(true);
+                return t;
+            })
+            : null;
+
+    // Hot-path instrumentation, one MethodStats per remote method
+    private final ServiceMetrics metrics = new ServiceMetrics();
+    private final MethodStats findOrCreateStats = metrics.method("findOrCreateGame");
+    private final MethodStats aiGameStats = metrics.method("playAgainstAi");
+    private final MethodStats createStats = metrics.method("createGame");
+    private final MethodStats joinStats = metrics.method("joinGame");
+    private final MethodStats listOpenStats = metrics.method("listOpenGames");
+    private final MethodStats makeMoveStats = metrics.method("makeMove");
+    private final MethodStats submitMoveStats = metrics.method("submitMove");
+    private final MethodStats getStateStats = metrics.method("getGameState");
+    private final MethodStats changesStats = metrics.method("getChangesSince");
+    private final MethodStats getStatesStats = metrics.method("getGameStates");
+    private final MethodStats makeMovesStats = metrics.method("makeMoves");
+    private final MethodStats awaitStats = metrics.method("awaitStateChange");
+    private final MethodStats subscribeStats = metrics.method("subscribe");
+    private final MethodStats unsubscribeStats = metrics.method("unsubscribe");
+    private final MethodStats watchStats = metrics.method("watchGame");
+    private final MethodStats stopWatchingStats = metrics.method("stopWatching");
+    private final MethodStats profileStats = metrics.method("getProfile");
+    private final MethodStats heartbeatStats = metrics.method("heartbeat");
 
     public GameServiceImpl() throws RemoteException {
+        this(GameIdAllocator.fromSystemProperties());
+    }
+
+    public GameServiceImpl(GameIdAllocator ids) throws RemoteException {
         super();
+        this.ids = ids;
+        metrics.setQueueDepth(games::waitingDepth);
     }
-    
-    // -------------------------------------------------------
-    // Helper: Generate Unique 4-Digit Game ID
-    // -------------------------------------------------------
-    private String generateUnique4DigitGameId() {
-        // Generates a random number from 1000 to 9999
-        Random random = new Random();
-        String gameId;
-        
-        do {
-            int num = random.nextInt(9000) + 1000;
-            gameId = String.valueOf(num);
-            
-            // Check if this ID is already in use by an active game
-        } while (games.containsKey(gameId)); 
-        
-        return gameId;
+
+    public ServiceMetrics metrics() {
+        return metrics;
+    }
+
+    // Called by the reaper once a game has been removed from the registry
+    private void evicted(GameEntry e) {
+        dispatcher.clear(e.gameId());
+        spectators.clear(e.gameId());
+        metrics.transition(e.state.getStatus(), null);
+
+        // Journal first: the id may be reused right after release
+        journal.evicted(e.gameId());
+        ids.release(e.gameId());
     }
 
 
@@ -40,182 +119,886 @@ public class GameServiceImpl extends UnicastRemoteObject implements GameService
      * it creates a new game.
      */
     @Override
-    public synchronized GameMatch findOrCreateGame(String playerName) throws RemoteException {
-        
-        // 1. Check for any waiting games (WAITING_FOR_PLAYER)
-        String openGameId = null;
-        for (Map.Entry<String, GameState> entry : games.entrySet()) {
-            if (entry.getValue().getStatus() == GameStatus.WAITING_FOR_PLAYER) {
-                openGameId = entry.getKey();
-                break; // Found one, exit loop
-            }
+    public GameMatch findOrCreateGame(String playerName) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            checkName(playerName);
+            GameMatch match = matchmake(playerName);
+            ok = true;
+            return match;
+        } finally {
+            findOrCreateStats.record(start, ok);
+        }
+    }
+
+    private GameMatch matchmake(String playerName) throws RemoteException {
+        int rating = profiles.rating(playerName);
+
+        // 1. Take the closest-rated game waiting for a player (WAITING_FOR_PLAYER)
+        GameEntry e;
+        while ((e = games.pollWaiting(rating)) != null) {
+
+            // 2. Found an open game, try to JOIN it (This is Player O).
+            // Another thread may have taken the seat meanwhile, then take the next one.
+            GameMatch match = tryJoin(e, playerName);
+            if (match != null)
+                return match;
+        }
+
+        // 3. No open game, CREATE a new one (This is Player X)
+        e = newGame(playerName, new Board(), false);
+
+        if (aiFiller != null) {
+            GameEntry created = e;
+            aiFiller.schedule(() -> joinAi(created), AI_FILL_MS, TimeUnit.MILLISECONDS);
+        }
+
+        return creatorMatch(e);
+    }
+
+    // -------------------------------------------------------
+    // Play Against the AI
+    // -------------------------------------------------------
+    @Override
+    public GameMatch playAgainstAi(String playerName) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            checkName(playerName);
+            GameEntry e = newGame(playerName, new Board(), true);
+            ok = true;
+            return creatorMatch(e);
+        } finally {
+            aiGameStats.record(start, ok);
+        }
+    }
+
+    // The AI takes the second seat, unless a player got there first
+    private void joinAi(GameEntry e) {
+        GameState gs = e.state;
+
+        synchronized (gs) {
+            if (gs.getPlayers().size() >= 2 || games.get(e.gameId()) != e)
+                return;
+
+            Player ai = PerfectPlay.newPlayer('O');
+            addSecondPlayer(e, ai);
+            journal.joined(e.gameId(), ai, e.openSession(1));
+
+            // In case it is the AI's turn already
+            aiReply(e);
         }
-        
-        if (openGameId != null) {
-            // 2. Found an open game, JOIN it
-            // This is Player O
-            Player p = joinGame(openGameId, playerName); 
-            return new GameMatch(openGameId, p);
-            
-        } else {
-            // 3. No open game, CREATE a new one
-            // This is Player X
-            String newGameId = createGame(playerName);
-            
-            // Find the Player object created for the game creator
-            GameState gs = games.get(newGameId);
-            Player p = gs.getPlayers().get(0);
-            
-            return new GameMatch(newGameId, p);
+    }
+
+    // Must be called while holding the game's monitor. Plays the AI's move if
+    // it is the AI's turn; a table lookup, so it is done inline.
+    private void aiReply(GameEntry e) {
+        GameState gs = e.state;
+        if (gs.getStatus() != GameStatus.IN_PROGRESS || !gs.getBoard().isClassic())
+            return;
+
+        int seat = e.turnSeat();
+        Player p = gs.getPlayers().get(seat);
+        if (!PerfectPlay.isAi(p))
+            return;
+
+        int cell = PerfectPlay.bestMove(gs.getBoard());
+        try {
+            applyMove(e, seat, cell / 3, cell % 3);
+        } catch (RemoteException ex) {
+            throw new IllegalStateException("AI move refused: " + ex.getMessage(), ex);
         }
     }
     
+    // -------------------------------------------------------
+    // Player Profiles
+    // -------------------------------------------------------
+    @Override
+    public PlayerProfile getProfile(String playerName) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            PlayerProfile profile = profiles.profile(playerName);
+            ok = true;
+            return profile;
+        } finally {
+            profileStats.record(start, ok);
+        }
+    }
+
     // -------------------------------------------------------
     // Create Game (Used internally by findOrCreateGame)
     // -------------------------------------------------------
     @Override
-    public synchronized String createGame(String playerName) throws RemoteException {
-        String gameId = generateUnique4DigitGameId();
-        GameState gs = new GameState(gameId);
+    public String createGame(String playerName) throws RemoteException {
+        return createGame(playerName, Board.CLASSIC_SIZE, Board.CLASSIC_SIZE);
+    }
 
-        // First player is always 'X'
-        Player p = new Player(playerName, 'X');
-        gs.getPlayers().add(p);
+    @Override
+    public String createGame(String playerName, int boardSize, int winLength) throws RemoteException {
+        return createMatch(playerName, boardSize, winLength).getGameId();
+    }
 
-        gs.setStatus(GameStatus.WAITING_FOR_PLAYER);
-        gs.setCurrentTurnPlayerId(p.getId());
+    @Override
+    public GameMatch createMatch(String playerName, int boardSize, int winLength) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            checkName(playerName);
+            Board board;
+            try {
+                board = new Board(boardSize, winLength);
+            } catch (IllegalArgumentException e) {
+                throw new RemoteException(e.getMessage());
+            }
+            GameMatch match = creatorMatch(newGame(playerName, board, false));
+            ok = true;
+            return match;
+        } finally {
+            createStats.record(start, ok);
+        }
+    }
 
-        games.put(gameId, gs);
-        return gameId;
+    private static void checkName(String playerName) throws RemoteException {
+        if (playerName == null)
+            throw new RemoteException("Player name required");
+        if (playerName.length() > MAX_NAME_LENGTH)
+            throw new RemoteException("Player name longer than " + MAX_NAME_LENGTH + " characters");
+    }
+
+    // The creator's seat and session, issued once by newGame()
+    private static GameMatch creatorMatch(GameEntry e) {
+        synchronized (e.state) {
+            return new GameMatch(e.gameId(), e.state.getPlayers().get(0), 0, e.token(0));
+        }
+    }
+
+    // vsAi: the AI takes the second seat right away, the game is never open
+    private GameEntry newGame(String playerName, Board board, boolean vsAi) throws RemoteException {
+        while (true) {
+            String gameId;
+            try {
+                gameId = ids.allocate();
+            } catch (IllegalStateException ex) {
+                throw new RemoteException("Server full, try again later");
+            }
+
+            GameState gs = new GameState(gameId, board);
+
+            // First player is always 'X'
+            Player p = new Player(playerName, 'X');
+            gs.getPlayers().add(p);
+
+            gs.setStatus(GameStatus.WAITING_FOR_PLAYER);
+            gs.setCurrentTurnPlayerId(p.getId());
+
+            // Ids are unique, but never overwrite a registered game
+            GameEntry e = new GameEntry(gs);
+            long token = e.openSession(0);
+            if (games.register(e)) {
+                reaper.schedule(e);
+                journal.created(gs, token);
+                metrics.transition(null, GameStatus.WAITING_FOR_PLAYER);
+
+                if (vsAi)
+                    joinAi(e);
+                else
+                    games.waitingForPlayer(e, profiles.rating(playerName));
+                return e;
+            }
+        }
     }
 
     // -------------------------------------------------------
     // Join Game (Used internally by findOrCreateGame)
     // -------------------------------------------------------
     @Override
-    public synchronized Player joinGame(String gameId, String playerName) throws RemoteException {
-        GameState gs = games.get(gameId);
+    public Player joinGame(String gameId, String playerName) throws RemoteException {
+        return joinMatch(gameId, playerName).getPlayer();
+    }
 
-        if (gs == null)
-            throw new RemoteException("Game not found");
+    @Override
+    public GameMatch joinMatch(String gameId, String playerName) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            checkName(playerName);
+            GameEntry e = games.require(gameId);
+            GameMatch match = tryJoin(e, playerName);
+
+            if (match == null)
+                throw new RemoteException(games.get(gameId) == e ? "Game full" : "Game not found");
+
+            ok = true;
+            return match;
+        } finally {
+            joinStats.record(start, ok);
+        }
+    }
 
-        if (gs.getPlayers().size() >= 2)
-            throw new RemoteException("Game full");
+    // Takes the second seat, or returns null if it is already taken or the
+    // game was evicted meanwhile (its id may already belong to a new game)
+    private GameMatch tryJoin(GameEntry e, String playerName) {
+        GameState gs = e.state;
+
+        long waitStart = System.nanoTime();
+        synchronized (gs) {
+            metrics.lockWait(System.nanoTime() - waitStart);
+
+            if (gs.getPlayers().size() >= 2 || games.get(e.gameId()) != e)
+                return null;
+
+            // Assign opposite symbol (Second player is always 'O')
+            char symbol = (gs.getPlayers().get(0).getSymbol() == 'X') ? 'O' : 'X';
+            Player p = new Player(playerName, symbol);
+
+            addSecondPlayer(e, p);
+            long token = e.openSession(1);
+            journal.joined(e.gameId(), p, token);
+
+            return new GameMatch(e.gameId(), p, 1, token);
+        }
+    }
 
-        // Assign opposite symbol (Second player is always 'O')
-        char symbol = (gs.getPlayers().get(0).getSymbol() == 'X') ? 'O' : 'X';
-        Player p = new Player(playerName, symbol);
+    // Must be called while holding the game's monitor
+    private void addSecondPlayer(GameEntry e, Player p) {
+        GameState gs = e.state;
 
         gs.getPlayers().add(p);
         gs.setStatus(GameStatus.IN_PROGRESS);
+        games.started(e);
+        metrics.transition(GameStatus.WAITING_FOR_PLAYER, GameStatus.IN_PROGRESS);
+        e.touch();
+        stateChanged(e);
+        recordStatusChange(e);
+
+        // After the new snapshot is out, spectators are sent that one
+        spectators.changed(e.gameId());
+    }
 
-        return p;
+    // -------------------------------------------------------
+    // List Open Games
+    // -------------------------------------------------------
+    @Override
+    public List<String> listOpenGames() throws RemoteException {
+        // Games still open and waiting for a second player; finished games
+        // are evicted by the reaper
+        long start = System.nanoTime();
+        List<String> open = games.openGameIds();
+        listOpenStats.record(start, true);
+        return open;
     }
 
     // -------------------------------------------------------
-    // List Open Games (Cleanup Logic)
+    // Make a Move
     // -------------------------------------------------------
     @Override
-    public synchronized List<String> listOpenGames() throws RemoteException {
-        List<String> open = new ArrayList<>();
-        
-        // Use an Iterator to safely remove finished games while iterating
-        Iterator<Map.Entry<String, GameState>> iterator = games.entrySet().iterator();
+    public GameState makeMove(String gameId, Move move) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            GameEntry e = games.require(gameId);
+
+            long waitStart = System.nanoTime();
+            MoveResult result;
+            GameState snapshot;
+            synchronized (e.state) {
+                metrics.lockWait(System.nanoTime() - waitStart);
+                result = playerMove(e, move);
+                snapshot = e.snapshot();
+            }
+            // Frozen, so it can be sampled (serialized) after the lock is released
+            metrics.samplePayload(snapshot);
+            rateIfFinished(e, result);
+            ok = true;
+            return snapshot;
+        } finally {
+            makeMoveStats.record(start, ok);
+        }
+    }
 
-        while (iterator.hasNext()) {
-            Map.Entry<String, GameState> entry = iterator.next();
-            GameState gs = entry.getValue();
+    // Same as makeMove, but only reports what changed
+    @Override
+    public MoveResult submitMove(String gameId, Move move) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            GameEntry e = games.require(gameId);
+
+            long waitStart = System.nanoTime();
+            MoveResult result;
+            synchronized (e.state) {
+                metrics.lockWait(System.nanoTime() - waitStart);
+                result = playerMove(e, move);
+            }
+            metrics.samplePayload(result);
+            rateIfFinished(e, result);
+            ok = true;
+            return result;
+        } finally {
+            submitMoveStats.record(start, ok);
+        }
+    }
 
-            if (gs.getStatus() == GameStatus.WAITING_FOR_PLAYER) {
-                // Game is still open and waiting for a second player
-                open.add(entry.getKey());
-            } else if (gs.getStatus() == GameStatus.FINISHED) {
-                // Game is finished, remove it to free up the 4-digit ID
-                iterator.remove();
+    @Override
+    public List<MoveResult> makeMoves(List<GameMove> moves) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            checkBatch(moves.size());
+
+            List<MoveResult> results = new ArrayList<>(moves.size());
+            for (GameMove gm : moves) {
+                Move move = gm.getMove();
+                try {
+                    GameEntry e = games.require(gm.getGameId());
+
+                    long waitStart = System.nanoTime();
+                    MoveResult result;
+                    synchronized (e.state) {
+                        metrics.lockWait(System.nanoTime() - waitStart);
+                        result = playerMove(e, move);
+                    }
+                    rateIfFinished(e, result);
+                    results.add(result);
+                } catch (RemoteException refused) {
+                    results.add(MoveResult.rejected(move.getRow(), move.getCol(), refused.getMessage()));
+                }
             }
+
+            ok = true;
+            return results;
+        } finally {
+            makeMovesStats.record(start, ok);
         }
+    }
 
-        return open;
+    private static void checkBatch(int size) throws RemoteException {
+        if (size > MAX_BATCH)
+            throw new RemoteException("Batch too large, at most " + MAX_BATCH);
+    }
+
+    // Must be called while holding the game's monitor. A move from a client:
+    // applied, then answered right away if the opponent is the AI. The caller
+    // rates the game once it let go of the monitor (rateIfFinished).
+    private MoveResult playerMove(GameEntry e, Move move) throws RemoteException {
+        MoveResult result = applyMove(e, move);
+        aiReply(e);
+        return result;
+    }
+
+    // Called after leaving the game's monitor: rates the game if the move
+    // finished it, so profile updates never run under a game lock
+    private void rateIfFinished(GameEntry e, MoveResult result) {
+        if (result.getStatus() == GameStatus.FINISHED)
+            rate(e.snapshot());
+    }
+
+    // A game between two people just finished; games against the AI and
+    // replayed moves do not count. Takes a snapshot, not the live state.
+    private void rate(GameState gs) {
+        Player x = gs.getPlayers().get(0);
+        Player o = gs.getPlayers().get(1);
+        if (PerfectPlay.isAi(x) || PerfectPlay.isAi(o))
+            return;
+
+        String winner = gs.getWinnerPlayerId();
+        double scoreX = winner == null ? 0.5 : winner.equals(x.getId()) ? 1 : 0;
+        profiles.recordResult(x.getName(), o.getName(), scoreX);
+    }
+
+    // Must be called while holding the game's monitor. The player making the
+    // move is found by session, see GameEntry.seatOf(Move).
+    private MoveResult applyMove(GameEntry e, Move move) throws RemoteException {
+        return applyMove(e, e.seatOf(move), move.getRow(), move.getCol());
+    }
+
+    // Must be called while holding the game's monitor. The seat is known
+    // already: from the client's session, or the AI's or the journal's own.
+    private MoveResult applyMove(GameEntry e, int seat, int row, int col) throws RemoteException {
+        GameState gs = e.state;
+
+        // Validate game state
+        if (gs.getStatus() != GameStatus.IN_PROGRESS &&
+            gs.getStatus() != GameStatus.WAITING_FOR_PLAYER) {
+            throw new RemoteException("Game not in progress");
+        }
+
+        if (seat < 0)
+            throw new RemoteException("Player not in game");
+
+        // Check turn
+        if (seat != e.turnSeat())
+            throw new RemoteException("Not your turn");
+
+        Player mover = gs.getPlayers().get(seat);
+        e.seenIfWatched(seat);
+
+        // Try placing move
+        boolean placed = gs.getBoard().place(row, col, mover.getSymbol());
+        if (!placed)
+            throw new RemoteException("Invalid move");
+
+        // Check winner
+        GameStatus before = gs.getStatus();
+        Character winner = gs.getBoard().checkWinner();
+
+        if (winner != null) {
+            // Only the move just placed can have completed a line
+            gs.setWinnerPlayerId(mover.getId());
+            gs.setStatus(GameStatus.FINISHED);
+        }
+        else if (gs.getBoard().isFull()) {
+            gs.setStatus(GameStatus.FINISHED);
+            gs.setWinnerPlayerId(null); // draw
+        }
+        else {
+            // Switch turn
+            e.passTurn();
+        }
+
+        if (gs.getStatus() != before)
+            metrics.transition(before, gs.getStatus());
+
+        e.touch();
+        journal.moved(e.gameId(), mover, row, col);
+
+        // Finished games get the (shorter) finished TTL right away
+        if (gs.getStatus() == GameStatus.FINISHED)
+            reaper.schedule(e);
+
+        stateChanged(e);
+
+        MoveResult result = new MoveResult(gs, row, col, mover.getSymbol());
+        e.recordMove(result);
+        spectators.moved(e.gameId(), result);
+
+        return result;
     }
 
     // -------------------------------------------------------
-    // Make a Move
+    // Heartbeats
     // -------------------------------------------------------
     @Override
-    public GameState makeMove(String gameId, Move move) throws RemoteException {
-        GameState gs = games.get(gameId);
+    public boolean heartbeat(String gameId, int seat, long token) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            // No lock: tokens and last-seen times are atomics
+            GameEntry e = games.require(gameId);
+            if (!e.validSession(seat, token))
+                throw new RemoteException("Invalid session");
+
+            boolean running = e.snapshot().getStatus() != GameStatus.FINISHED;
+            if (running)
+                heartbeats.seen(e, seat);
+
+            ok = true;
+            return running;
+        } finally {
+            heartbeatStats.record(start, ok);
+        }
+    }
 
-        if (gs == null)
-            throw new RemoteException("Game not found");
+    // Called by the monitor when a seat stopped sending heartbeats. A game
+    // still waiting for its second player is dropped, a game in progress is
+    // lost by the silent player.
+    private void silent(GameEntry e, int seat) {
+        GameState gs = e.state;
+        boolean abort;
 
         synchronized (gs) {
+            if (games.get(e.gameId()) != e || gs.getStatus() == GameStatus.FINISHED)
+                return;
+
+            abort = gs.getStatus() == GameStatus.WAITING_FOR_PLAYER;
+            if (abort) {
+                // The reaper may evict it at the same time; only one of us
+                // may release the id
+                if (!games.remove(e.gameId(), e))
+                    return;
+                e.wakeWaiters();
+            } else {
+                forfeit(e, seat);
+            }
+        }
+
+        if (abort)
+            evicted(e);
+        else
+            rate(e.snapshot());
+    }
+
+    // Must be called while holding the game's monitor. The player in the seat
+    // gives up, the other one wins.
+    private void forfeit(GameEntry e, int seat) {
+        GameState gs = e.state;
+        GameStatus before = gs.getStatus();
+
+        gs.setWinnerPlayerId(gs.getPlayers().get(1 - seat).getId());
+        gs.setStatus(GameStatus.FINISHED);
+        metrics.transition(before, GameStatus.FINISHED);
+
+        e.touch();
+        journal.forfeited(e.gameId(), gs.getPlayers().get(seat));
+        reaper.schedule(e);
+        stateChanged(e);
+        recordStatusChange(e);
+        spectators.changed(e.gameId());
+    }
+
+    // -------------------------------------------------------
+    // Get Game State
+    // -------------------------------------------------------
+    @Override
+    public GameState getGameState(String gameId) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            // Lock-free: the latest published snapshot, never a half-made move
+            GameState gs = games.require(gameId).snapshot();
+            metrics.samplePayload(gs);
+            ok = true;
+            return gs;
+        } finally {
+            getStateStats.record(start, ok);
+        }
+    }
 
-            // Validate game state
-            if (gs.getStatus() != GameStatus.IN_PROGRESS &&
-                gs.getStatus() != GameStatus.WAITING_FOR_PLAYER) {
-                throw new RemoteException("Game not in progress");
+    @Override
+    public Map<String, GameState> getGameStates(Collection<String> gameIds) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            checkBatch(gameIds.size());
+
+            Map<String, GameState> states = new LinkedHashMap<>();
+            for (String gameId : gameIds) {
+                GameEntry e = games.get(gameId);
+                if (e != null)
+                    states.put(gameId, e.snapshot());
             }
 
-            // Find the player making the move
-            Player mover = gs.getPlayers()
-                    .stream()
-                    .filter(p -> p.getId().equals(move.getPlayerId()))
-                    .findFirst()
-                    .orElse(null);
-
-            if (mover == null)
-                throw new RemoteException("Player not in game");
-
-            // Check turn
-            if (!mover.getId().equals(gs.getCurrentTurnPlayerId()))
-                throw new RemoteException("Not your turn");
-
-            // Try placing move
-            boolean placed = gs.getBoard().place(move.getRow(), move.getCol(), mover.getSymbol());
-            if (!placed)
-                throw new RemoteException("Invalid move");
-
-            // Check winner
-            Character winner = gs.getBoard().checkWinner();
-
-            if (winner != null) {
-                // Find winning player
-                for (Player p : gs.getPlayers()) {
-                    if (p.getSymbol() == winner) {
-                        gs.setWinnerPlayerId(p.getId());
-                        gs.setStatus(GameStatus.FINISHED);
-                        break;
-                    }
-                }
+            ok = true;
+            return states;
+        } finally {
+            getStatesStats.record(start, ok);
+        }
+    }
+
+    // Moves and status changes after the given version; the caller patches
+    // its own copy
+    @Override
+    public List<MoveResult> getChangesSince(String gameId, long version) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            GameEntry e = games.require(gameId);
+
+            long waitStart = System.nanoTime();
+            synchronized (e.state) {
+                metrics.lockWait(System.nanoTime() - waitStart);
+                List<MoveResult> changes = e.movesSince(version);
+                ok = true;
+                return changes;
             }
-            else if (gs.getBoard().isFull()) {
-                gs.setStatus(GameStatus.FINISHED);
-                gs.setWinnerPlayerId(null); // draw
+        } finally {
+            changesStats.record(start, ok);
+        }
+    }
+
+    // -------------------------------------------------------
+    // Long-Poll for Changes
+    // -------------------------------------------------------
+    // Over RMI the calling thread has to wait for the answer, but it parks on
+    // a future, not on the game's monitor (which would pin a virtual thread)
+    @Override
+    public GameState awaitStateChange(String gameId, long knownVersion, long timeoutMs) throws RemoteException {
+        CompletableFuture<GameState> changed = awaitStateChangeAsync(gameId, knownVersion, timeoutMs);
+        try {
+            return changed.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return games.require(gameId).snapshot();
+        } catch (ExecutionException ex) {
+            throw new RemoteException("Waiting for a change failed", ex.getCause());
+        }
+    }
+
+    // No thread waits here: the future is completed by stateChanged(), by
+    // eviction or by its timeout
+    @Override
+    public CompletableFuture<GameState> awaitStateChangeAsync(String gameId, long knownVersion, long timeoutMs)
+            throws RemoteException {
+        // Latency here is mostly the wait itself, by design
+        long start = System.nanoTime();
+        GameEntry e;
+        try {
+            e = games.require(gameId);
+        } catch (RemoteException ex) {
+            awaitStats.record(start, false);
+            throw ex;
+        }
+
+        CompletableFuture<GameState> changed = awaitChange(e, knownVersion, timeoutMs);
+        changed.whenComplete((gs, ex) -> awaitStats.record(start, ex == null));
+        return changed;
+    }
+
+    private CompletableFuture<GameState> awaitChange(GameEntry e, long knownVersion, long timeoutMs) {
+        long timeout = Math.min(Math.max(timeoutMs, 0), MAX_AWAIT_MS);
+
+        // Already newer (or not willing to wait): no need to park
+        GameState snapshot = e.snapshot();
+        if (snapshot.getVersion() > knownVersion || timeout == 0)
+            return CompletableFuture.completedFuture(snapshot);
+
+        CompletableFuture<GameState> waiter = new CompletableFuture<>();
+        e.addWaiter(waiter);
+
+        // A change published while we were adding ourselves
+        snapshot = e.snapshot();
+        if (snapshot.getVersion() > knownVersion)
+            waiter.complete(snapshot);
+
+        // Timed out: whatever the game looks like now
+        return waiter.completeOnTimeout(null, timeout, TimeUnit.MILLISECONDS)
+                .thenApply(gs -> gs != null ? gs : e.snapshot());
+    }
+
+    // Must be called while holding the game's monitor, right after
+    // stateChanged(). A change that was not a move still gets a MoveResult,
+    // so getChangesSince() has no gaps.
+    private void recordStatusChange(GameEntry e) {
+        GameState gs = e.state;
+        e.recordMove(MoveResult.statusChange(gs));
+    }
+
+    // Must be called while holding the game's monitor. Publishes the new
+    // snapshot before anyone is told about the change.
+    private void stateChanged(GameEntry e) {
+        GameState gs = e.state;
+        gs.incrementVersion();
+        e.publish();
+        e.wakeWaiters();
+        dispatcher.publish(e.snapshot());
+    }
+
+    // -------------------------------------------------------
+    // Persistence
+    // -------------------------------------------------------
+    /**
+     * Restores the games saved in the journal directory and journals every
+     * change from now on. Call once, before the service is bound.
+     *
+     * @return number of games restored
+     */
+    public int openJournal(Path dir) throws IOException {
+        MappedGameJournal j = new MappedGameJournal(dir, games);
+        int restored = j.recover(this);
+        journal = j;
+        return restored;
+    }
+
+    public void closeJournal() {
+        journal.close();
+        journal = GameJournal.NONE;
+    }
+
+    /**
+     * Loads the player profiles from the file (if it exists) and saves them
+     * back every {@value #PROFILE_SAVE_SECONDS} seconds when they changed.
+     * Call once, before the service is bound.
+     *
+     * @return number of profiles loaded
+     */
+    public synchronized int openProfiles(Path file) throws IOException {
+        int loaded = profiles.load(file);
+
+        profileSaver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "profile-saver");
+            t.setDaemon(true);
+            return t;
+        });
+        profileSaver.scheduleWithFixedDelay(this::saveProfiles,
+                PROFILE_SAVE_SECONDS, PROFILE_SAVE_SECONDS, TimeUnit.SECONDS);
+        return loaded;
+    }
+
+    public synchronized void closeProfiles() {
+        if (profileSaver != null) {
+            profileSaver.shutdown();
+            profileSaver = null;
+        }
+        saveProfiles();
+    }
+
+    /**
+     * Stops the background threads (reaper, heartbeat monitor, push and
+     * spectator delivery, AI filler), saves and closes profiles and journal,
+     * and unexports the service. For embedding and benchmarks; a server just
+     * exits.
+     */
+    @Override
+    public void close() {
+        try {
+            UnicastRemoteObject.unexportObject(this, true);
+        } catch (NoSuchObjectException alreadyUnexported) {
+            // nothing to do
+        }
+
+        reaper.close();
+        heartbeats.close();
+        dispatcher.close();
+        spectators.close();
+        if (aiFiller != null)
+            aiFiller.shutdownNow();
+
+        closeProfiles();
+        closeJournal();
+    }
+
+    private void saveProfiles() {
+        try {
+            profiles.save();
+        } catch (IOException ex) {
+            System.err.println("Saving profiles failed: " + ex);
+        }
+    }
+
+    // A game from a snapshot, with the session tokens of its seats (0 = none)
+    void restoreGame(GameState gs, long creatorToken, long joinerToken) {
+        GameEntry e = new GameEntry(gs);
+        e.restoreSession(0, creatorToken);
+        e.restoreSession(1, joinerToken);
+
+        if (!games.register(e))
+            return;
+
+        ids.reserve(gs.getGameId());
+        metrics.transition(null, gs.getStatus());
+        if (gs.getStatus() == GameStatus.WAITING_FOR_PLAYER)
+            games.waitingForPlayer(e, profiles.rating(gs.getPlayers().get(0).getName()));
+        reaper.schedule(e);
+    }
+
+    // Journal replay; events already covered by the snapshot are skipped
+    void replayCreate(String gameId, Board board, Player creator, long token) {
+        if (games.contains(gameId))
+            return;
+
+        GameState gs = new GameState(gameId, board);
+        gs.getPlayers().add(creator);
+        gs.setStatus(GameStatus.WAITING_FOR_PLAYER);
+        gs.setCurrentTurnPlayerId(creator.getId());
+
+        restoreGame(gs, token, 0);
+    }
+
+    void replayJoin(String gameId, Player p, long token) {
+        GameEntry e = games.get(gameId);
+        if (e == null)
+            return;
+
+        synchronized (e.state) {
+            if (e.state.getPlayers().size() < 2) {
+                addSecondPlayer(e, p);
+                e.restoreSession(1, token);
             }
-            else {
-                // Switch turn
-                for (Player p : gs.getPlayers()) {
-                    if (!p.getId().equals(mover.getId())) {
-                        gs.setCurrentTurnPlayerId(p.getId());
-                        break;
-                    }
-                }
+        }
+    }
+
+    void replayMove(String gameId, String moverId, int row, int col) {
+        GameEntry e = games.get(gameId);
+        if (e == null)
+            return;
+
+        synchronized (e.state) {
+            try {
+                applyMove(e, e.indexOf(moverId), row, col);
+            } catch (RemoteException alreadyApplied) {
+                // cell taken / not that player's turn: the snapshot has it
             }
+        }
+    }
 
-            return gs;
+    void replayForfeit(String gameId, String quitterId) {
+        GameEntry e = games.get(gameId);
+        if (e == null)
+            return;
+
+        synchronized (e.state) {
+            List<Player> players = e.state.getPlayers();
+            if (e.state.getStatus() != GameStatus.IN_PROGRESS || players.size() < 2)
+                return;
+
+            int seat = players.get(0).getId().equals(quitterId) ? 0 : 1;
+            forfeit(e, seat);
         }
     }
 
+    void replayEvict(String gameId) {
+        GameEntry e = games.get(gameId);
+        if (e == null)
+            return;
+
+        metrics.transition(e.state.getStatus(), null);
+        games.remove(gameId);
+        ids.release(gameId);
+    }
+
     // -------------------------------------------------------
-    // Get Game State
+    // Push Notifications
     // -------------------------------------------------------
     @Override
-    public GameState getGameState(String gameId) throws RemoteException {
-        GameState gs = games.get(gameId);
+    public void subscribe(String gameId, GameListener listener) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            games.require(gameId);
+            dispatcher.subscribe(gameId, listener);
+            ok = true;
+        } finally {
+            subscribeStats.record(start, ok);
+        }
+    }
 
-        if (gs == null)
-            throw new RemoteException("Game not found");
+    @Override
+    public void unsubscribe(String gameId, GameListener listener) throws RemoteException {
+        long start = System.nanoTime();
+        dispatcher.unsubscribe(gameId, listener);
+        unsubscribeStats.record(start, true);
+    }
+
+    // -------------------------------------------------------
+    // Spectators
+    // -------------------------------------------------------
+    @Override
+    public GameState watchGame(String gameId, SpectatorListener listener) throws RemoteException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            GameEntry e = games.require(gameId);
+            GameState gs;
+
+            // Under the lock no move falls between the state handed back and
+            // the watcher's first push; GameState.apply skips any it already has
+            synchronized (e.state) {
+                spectators.watch(e, listener);
+                gs = e.snapshot();
+            }
+            ok = true;
+            return gs;
+        } finally {
+            watchStats.record(start, ok);
+        }
+    }
 
-        return gs;
+    @Override
+    public void stopWatching(String gameId, SpectatorListener listener) throws RemoteException {
+        long start = System.nanoTime();
+        spectators.unwatch(gameId, listener);
+        stopWatchingStats.record(start, true);
     }
-}
\ No newline at end of file
+}
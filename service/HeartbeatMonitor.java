@@ -0,0 +1,104 @@
+package service;
+
+import model.GameStatus;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Notices players who stopped sending heartbeats.
+ *
+ * A seat is watched from its first heartbeat on; clients that never send
+ * any are left to the reaper's idle TTL. The last-seen times live in the
+ * GameEntry and are updated without locking. Like the reaper, every watched
+ * seat has one deadline in a DelayQueue, so nothing scans the registry. When
+ * a deadline fires the seat is re-checked against its last heartbeat and
+ * either reported as silent or rescheduled.
+ */
+class HeartbeatMonitor {
+
+    // How long a watched seat may stay silent before its game is forfeited
+    // (or aborted, if nobody joined yet)
+    static final long GRACE_MS = Long.getLong("game.heartbeat.graceMs", 10_000);
+
+    private final GameRegistry games;
+    private final ObjIntConsumer<GameEntry> onSilent;
+
+    private final DelayQueue<Deadline> deadlines = new DelayQueue<>();
+    private final Thread thread;
+
+    HeartbeatMonitor(GameRegistry games, ObjIntConsumer<GameEntry> onSilent) {
+        this.games = games;
+        this.onSilent = onSilent;
+
+        thread = new Thread(this::run, "heartbeat-monitor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void close() {
+        thread.interrupt();
+    }
+
+    // A heartbeat from the seat; starts watching it on the first one
+    void seen(GameEntry e, int seat) {
+        if (e.seen(seat))
+            deadlines.offer(new Deadline(e, seat, System.currentTimeMillis() + GRACE_MS));
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                check(deadlines.take());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void check(Deadline d) {
+        GameEntry e = d.entry;
+
+        // Evicted or over meanwhile: nothing left to watch
+        if (games.get(e.gameId()) != e || e.snapshot().getStatus() == GameStatus.FINISHED)
+            return;
+
+        long silentUntil = e.lastSeen(d.seat) + GRACE_MS;
+        if (System.currentTimeMillis() < silentUntil) {
+            deadlines.offer(new Deadline(e, d.seat, silentUntil));
+            return;
+        }
+
+        onSilent.accept(e, d.seat);
+    }
+
+    // -------------------------------------------------------
+    // Deadline
+    // -------------------------------------------------------
+    private static final class Deadline implements Delayed {
+
+        final GameEntry entry;
+        final int seat;
+        final long atMillis;
+
+        Deadline(GameEntry entry, int seat, long atMillis) {
+            this.entry = entry;
+            this.seat = seat;
+            this.atMillis = atMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(atMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(atMillis, ((Deadline) o).atMillis);
+        }
+    }
+}
@@ -0,0 +1,531 @@
+package service;
+
+import model.Board;
+import model.GameState;
+import model.Player;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal in memory-mapped segment files, with periodic snapshots.
+ *
+ * Callers only put a small event on a queue. A single writer thread drains
+ * the queue in batches, encodes the events straight into the mapped segment
+ * and then syncs according to the fsync policy (group commit):
+ *
+ *   game.journal.fsync       batch (default, force after every batch),
+ *                            interval (at most every game.journal.fsyncMs ms),
+ *                            never (leave it to the OS)
+ *   game.journal.segmentMb   size of one segment file (64)
+ *   game.journal.snapshotEvery  events between snapshots (100000)
+ *
+ * A snapshot rolls the journal over to a new segment first, then writes every
+ * game (each copied under its own lock) in the background and deletes the
+ * segments it covers. Recovery loads the newest snapshot and replays the
+ * segments from its number on. Events that the snapshot already contains fail
+ * validation on replay and are skipped, which makes replay idempotent.
+ *
+ * Record layout: [int length][byte type][payload], length 0 marks the end.
+ * Strings are [unsigned short length][UTF-8 bytes]; a record that does not
+ * parse within its length is treated like a torn one and ends the replay.
+ * CREATED and JOINED end with the seat's session token; records written
+ * before tokens were journaled are shorter and restore the seat without one.
+ * In a snapshot, every game is preceded by a tag byte: GAME_WITH_TOKENS for
+ * a game followed by both seats' tokens, 1 for an older game without them,
+ * 0 for the end.
+ */
+class MappedGameJournal implements GameJournal {
+
+    enum FsyncPolicy { BATCH, INTERVAL, NEVER }
+
+    private static final byte CREATED = 1;
+    private static final byte JOINED = 2;
+    private static final byte MOVED = 3;
+    private static final byte EVICTED = 4;
+    private static final byte FORFEITED = 5;
+
+    // Snapshot tag of a game followed by its session tokens
+    private static final byte GAME_WITH_TOKENS = 2;
+
+    // Longest string a record can hold (unsigned short length)
+    private static final int MAX_STRING = 0xFFFF;
+
+    private static final int BATCH_SIZE = 4096;
+    private static final int QUEUE_CAPACITY = 1 << 16;
+
+    private final Path dir;
+    private final GameRegistry games;
+
+    private final FsyncPolicy fsync =
+            FsyncPolicy.valueOf(System.getProperty("game.journal.fsync", "batch").toUpperCase());
+    private final long fsyncIntervalMs = Long.getLong("game.journal.fsyncMs", 10);
+    private final int segmentSize = Integer.getInteger("game.journal.segmentMb", 64) << 20;
+    private final long snapshotEvery = Long.getLong("game.journal.snapshotEvery", 100_000);
+
+    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Set when the writer hit an error it cannot recover from. From then on
+    // events are dropped instead of queued, so callers (which hold a game's
+    // monitor) never block on a writer that is gone.
+    private volatile boolean failed;
+
+    // Writer thread state
+    private long segment;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long lastForce;
+    private long sinceSnapshot;
+
+    MappedGameJournal(Path dir, GameRegistry games) throws IOException {
+        this.dir = dir;
+        this.games = games;
+        Files.createDirectories(dir);
+
+        writer = new Thread(this::writeLoop, "game-journal");
+        writer.setDaemon(true);
+    }
+
+    // -------------------------------------------------------
+    // Appending (any thread)
+    // -------------------------------------------------------
+    @Override
+    public void created(GameState gs, long token) {
+        Player p = gs.getPlayers().get(0);
+        append(new Event(CREATED, gs.getGameId(), p, gs.getBoard().getSize(), gs.getBoard().getWinLength(), token));
+    }
+
+    @Override
+    public void joined(String gameId, Player p, long token) {
+        append(new Event(JOINED, gameId, p, 0, 0, token));
+    }
+
+    @Override
+    public void moved(String gameId, Player mover, int row, int col) {
+        append(new Event(MOVED, gameId, mover, row, col, 0));
+    }
+
+    @Override
+    public void forfeited(String gameId, Player quitter) {
+        append(new Event(FORFEITED, gameId, quitter, 0, 0, 0));
+    }
+
+    @Override
+    public void evicted(String gameId) {
+        append(new Event(EVICTED, gameId, null, 0, 0, 0));
+    }
+
+    private void append(Event e) {
+        try {
+            // Only waits if the writer is a whole queue behind, and gives up
+            // as soon as the writer failed
+            while (!closed && !failed) {
+                if (queue.offer(e, 100, TimeUnit.MILLISECONDS))
+                    return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -------------------------------------------------------
+    // Recovery (before the service is exposed)
+    // -------------------------------------------------------
+
+    // Restores snapshot + journal into the service, then starts journaling.
+    // Returns the number of games restored.
+    int recover(GameServiceImpl service) throws IOException {
+        // Snapshots that were still being written when we went down
+        for (long n : list("snapshot-", ".tmp"))
+            Files.deleteIfExists(file("snapshot-", n, ".tmp"));
+
+        long snapshot = latest("snapshot-", ".bin");
+
+        if (snapshot >= 0) {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+                    Files.newInputStream(file("snapshot-", snapshot, ".bin"))))) {
+                byte tag;
+                while ((tag = in.readByte()) != 0) {
+                    GameState gs = new GameState();
+                    gs.readExternal(in);
+
+                    long creatorToken = 0;
+                    long joinerToken = 0;
+                    if (tag == GAME_WITH_TOKENS) {
+                        creatorToken = in.readLong();
+                        joinerToken = in.readLong();
+                    }
+                    service.restoreGame(gs, creatorToken, joinerToken);
+                }
+            }
+        }
+
+        long first = Math.max(snapshot, 0);
+        for (long seg : segments()) {
+            if (seg >= first)
+                replaySegment(file("journal-", seg, ".log"), service);
+        }
+
+        segment = Math.max(latest("journal-", ".log"), snapshot) + 1;
+        openSegment();
+
+        // Start from a clean snapshot so old segments can go right away
+        snapshot(segment);
+
+        writer.start();
+        return games.size();
+    }
+
+    private void replaySegment(Path path, GameServiceImpl service) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+
+            while (buf.remaining() >= 4) {
+                int length = buf.getInt();
+                if (length <= 0 || length > buf.remaining())
+                    break;  // end of log or torn record
+
+                int end = buf.position() + length;
+                byte type;
+                String gameId;
+                Player p = null;
+                try {
+                    type = buf.get();
+                    gameId = readString(buf, end);
+                    if (type == CREATED || type == JOINED)
+                        p = readPlayer(buf, end);
+                } catch (BufferUnderflowException torn) {
+                    break;
+                }
+
+                switch (type) {
+                    case CREATED: {
+                        int size = buf.get();
+                        int winLength = buf.get();
+                        service.replayCreate(gameId, new Board(size, winLength), p, readToken(buf, end));
+                        break;
+                    }
+                    case JOINED: {
+                        service.replayJoin(gameId, p, readToken(buf, end));
+                        break;
+                    }
+                    case MOVED: {
+                        UUID mover = new UUID(buf.getLong(), buf.getLong());
+                        int row = buf.get();
+                        int col = buf.get();
+                        service.replayMove(gameId, mover.toString(), row, col);
+                        break;
+                    }
+                    case FORFEITED: {
+                        UUID quitter = new UUID(buf.getLong(), buf.getLong());
+                        service.replayForfeit(gameId, quitter.toString());
+                        break;
+                    }
+                    case EVICTED:
+                        service.replayEvict(gameId);
+                        break;
+                    default:
+                        // unknown record, skip it
+                }
+
+                buf.position(end);
+            }
+        }
+    }
+
+    // -------------------------------------------------------
+    // Writer Thread
+    // -------------------------------------------------------
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>(BATCH_SIZE);
+
+        while (!failed && (!closed || !queue.isEmpty())) {
+            try {
+                if (queue.isEmpty() && !closed)
+                    batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - batch.size());
+
+                for (Event e : batch)
+                    write(e);
+                sinceSnapshot += batch.size();
+
+                sync();
+
+                if (sinceSnapshot >= snapshotEvery) {
+                    segment++;
+                    openSegment();
+                    snapshot(segment);
+                }
+            } catch (InterruptedException e) {
+                // close() was called, drain what is left and stop
+            } catch (Throwable t) {
+                // Retrying would write part of the batch twice; stop journaling
+                System.err.println("Journal writer failed, journaling stopped: " + t);
+                t.printStackTrace();
+                failed = true;
+                queue.clear();
+            } finally {
+                batch.clear();
+            }
+        }
+
+        if (!failed)
+            buffer.force();
+    }
+
+    private void write(Event e) throws IOException {
+        byte[] gameId = e.gameId.getBytes(StandardCharsets.UTF_8);
+        byte[] name = e.player != null ? e.player.getName().getBytes(StandardCharsets.UTF_8) : null;
+
+        // The service caps names far below this; never write a record that
+        // cannot be read back
+        if (gameId.length > MAX_STRING || (name != null && name.length > MAX_STRING)) {
+            System.err.println("Journal: skipped event of game " + e.gameId + ", string too long");
+            return;
+        }
+
+        int length = 1 + 2 + gameId.length;
+        switch (e.type) {
+            case CREATED: length += playerBytes(name) + 2 + 8; break;
+            case JOINED:  length += playerBytes(name) + 8; break;
+            case MOVED:   length += 16 + 2; break;
+            case FORFEITED: length += 16; break;
+            default:      break;
+        }
+
+        // Keep 4 bytes for the end marker
+        if (buffer.remaining() < 4 + length + 4) {
+            segment++;
+            openSegment();
+        }
+
+        int start = buffer.position();
+        buffer.position(start + 4);
+        buffer.put(e.type);
+        buffer.putShort((short) gameId.length).put(gameId);
+
+        switch (e.type) {
+            case CREATED:
+                writePlayer(e.player, name);
+                buffer.put((byte) e.a).put((byte) e.b);
+                buffer.putLong(e.token);
+                break;
+            case JOINED:
+                writePlayer(e.player, name);
+                buffer.putLong(e.token);
+                break;
+            case MOVED:
+                UUID id = e.player.getUuid();
+                buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+                buffer.put((byte) e.a).put((byte) e.b);
+                break;
+            case FORFEITED:
+                UUID quitter = e.player.getUuid();
+                buffer.putLong(quitter.getMostSignificantBits()).putLong(quitter.getLeastSignificantBits());
+                break;
+            default:
+                break;
+        }
+
+        // Length last, so a torn record reads as the end of the log
+        buffer.putInt(start, length);
+    }
+
+    private void sync() {
+        long now = System.currentTimeMillis();
+
+        switch (fsync) {
+            case BATCH:
+                buffer.force();
+                break;
+            case INTERVAL:
+                if (now - lastForce >= fsyncIntervalMs) {
+                    buffer.force();
+                    lastForce = now;
+                }
+                break;
+            case NEVER:
+                break;
+        }
+    }
+
+    private void openSegment() throws IOException {
+        if (buffer != null)
+            buffer.force();
+        if (channel != null)
+            channel.close();
+
+        channel = FileChannel.open(file("journal-", segment, ".log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    // -------------------------------------------------------
+    // Snapshots
+    // -------------------------------------------------------
+
+    // Everything before segment n is in memory already; write it out in the
+    // background and drop the segments and snapshots it replaces
+    private void snapshot(long n) {
+        sinceSnapshot = 0;
+
+        Thread t = new Thread(() -> {
+            try {
+                Path tmp = file("snapshot-", n, ".tmp");
+                try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(tmp)))) {
+                    for (GameEntry e : games.games()) {
+                        // Under the lock, so it covers every event journaled so far
+                        GameState gs;
+                        long creatorToken;
+                        long joinerToken;
+                        synchronized (e.state) {
+                            gs = e.snapshot();
+                            creatorToken = e.token(0);
+                            joinerToken = e.token(1);
+                        }
+                        out.writeByte(GAME_WITH_TOKENS);
+                        gs.writeExternal(out);
+                        out.writeLong(creatorToken);
+                        out.writeLong(joinerToken);
+                    }
+                    out.writeByte(0);
+                }
+
+                Files.move(tmp, file("snapshot-", n, ".bin"),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                for (long seg : segments())
+                    if (seg < n) Files.deleteIfExists(file("journal-", seg, ".log"));
+                for (long snap : list("snapshot-", ".bin"))
+                    if (snap < n) Files.deleteIfExists(file("snapshot-", snap, ".bin"));
+
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "game-snapshot");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // -------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------
+    private int playerBytes(byte[] name) {
+        return 16 + 2 + name.length + 2;
+    }
+
+    private void writePlayer(Player p, byte[] name) {
+        UUID id = p.getUuid();
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        buffer.putShort((short) name.length).put(name);
+        buffer.putChar(p.getSymbol());
+    }
+
+    private static Player readPlayer(ByteBuffer buf, int end) {
+        UUID id = new UUID(buf.getLong(), buf.getLong());
+        String name = readString(buf, end);
+        return new Player(id, name, buf.getChar());
+    }
+
+    // Session token at the end of a CREATED/JOINED record, 0 if the record
+    // predates journaled tokens
+    private static long readToken(ByteBuffer buf, int end) {
+        return end - buf.position() >= 8 ? buf.getLong() : 0;
+    }
+
+    // Unsigned length, so records of older versions with names longer than
+    // 32767 bytes read back as well
+    private static String readString(ByteBuffer buf, int end) {
+        int length = Short.toUnsignedInt(buf.getShort());
+        if (length > end - buf.position())
+            throw new BufferUnderflowException();
+
+        byte[] b = new byte[length];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private Path file(String prefix, long n, String suffix) {
+        return dir.resolve(String.format("%s%016d%s", prefix, n, suffix));
+    }
+
+    private List<Long> segments() throws IOException {
+        return list("journal-", ".log");
+    }
+
+    private long latest(String prefix, String suffix) throws IOException {
+        long max = -1;
+        for (long n : list(prefix, suffix))
+            max = Math.max(max, n);
+        return max;
+    }
+
+    // Sequence numbers of the files with this prefix/suffix, ascending
+    private List<Long> list(String prefix, String suffix) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(f -> f.getFileName().toString())
+                 .filter(f -> f.startsWith(prefix) && f.endsWith(suffix))
+                 .forEach(f -> result.add(Long.parseLong(
+                         f.substring(prefix.length(), f.length() - suffix.length()))));
+        }
+        result.sort(null);
+        return result;
+    }
+
+    // -------------------------------------------------------
+    // Event
+    // -------------------------------------------------------
+    private static final class Event {
+        final byte type;
+        final String gameId;
+        final Player player;
+        // CREATED: board size / win length, MOVED: row / col
+        final int a;
+        final int b;
+        // CREATED / JOINED: the seat's session token
+        final long token;
+
+        Event(byte type, String gameId, Player player, int a, int b, long token) {
+            this.type = type;
+            this.gameId = gameId;
+            this.player = player;
+            this.a = a;
+            this.b = b;
+            this.token = token;
+        }
+    }
+}
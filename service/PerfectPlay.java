@@ -0,0 +1,216 @@
+package service;
+
+import model.Board;
+import model.Player;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Perfect-play opponent for classic 3x3 games.
+ *
+ * Every position reachable in a real game is solved once, when the class is
+ * loaded, with negamax over a transposition table keyed by the base-3 board
+ * code. Positions that are rotations or mirror images of each other share one
+ * entry: a board is reduced to the smallest code among its 8 symmetries
+ * (765 positions instead of 5478). The answers are then mapped back to every
+ * orientation, so picking a move is a single array lookup and one instance
+ * serves any number of bot games.
+ */
+final class PerfectPlay {
+
+    private static final int CELLS = 9;
+    private static final int CODES = 19683; // 3^9
+
+    private static final int[] POW3 = new int[CELLS];
+
+    // SYM[s][i]: where cell i lands under symmetry s (4 rotations, 4 mirrors)
+    private static final int[][] SYM = new int[8][CELLS];
+
+    // INV[s][j]: the cell that lands on j under symmetry s
+    private static final int[][] INV = new int[8][CELLS];
+
+    private static final int[][] LINES = {
+            {0, 1, 2}, {3, 4, 5}, {6, 7, 8},
+            {0, 3, 6}, {1, 4, 7}, {2, 5, 8},
+            {0, 4, 8}, {2, 4, 6}
+    };
+
+    private static final byte UNSOLVED = Byte.MIN_VALUE;
+
+    // Canonical code -> best cell for the side to move (in that orientation),
+    // -1 for finished positions
+    private static final byte[] BEST = new byte[CODES];
+
+    // Canonical code -> score for the side to move, UNSOLVED if unreachable
+    private static final byte[] SCORE = new byte[CODES];
+
+    // Any code -> best cell, BEST mapped back from the canonical orientation
+    private static final byte[] MOVE = new byte[CODES];
+
+    // AI players get a UUID with these high bits. randomUUID() always sets
+    // version 4 in them, so no human player can collide.
+    private static final long AI_MARKER = 0x4149_0000_0000_0000L;
+
+    static {
+        POW3[0] = 1;
+        for (int i = 1; i < CELLS; i++)
+            POW3[i] = POW3[i - 1] * 3;
+
+        for (int i = 0; i < CELLS; i++) {
+            int r = i / 3, c = i % 3;
+            int[][] to = {
+                    {r, c}, {c, 2 - r}, {2 - r, 2 - c}, {2 - c, r},   // rotations
+                    {r, 2 - c}, {2 - r, c}, {c, r}, {2 - c, 2 - r}    // mirrors
+            };
+            for (int s = 0; s < 8; s++) {
+                SYM[s][i] = to[s][0] * 3 + to[s][1];
+                INV[s][SYM[s][i]] = i;
+            }
+        }
+
+        Arrays.fill(SCORE, UNSOLVED);
+        negamax(0);
+
+        for (int code = 0; code < CODES; code++) {
+            int sym = 0;
+            int canon = code;
+            for (int s = 1; s < 8; s++) {
+                int t = transform(code, s);
+                if (t < canon) {
+                    canon = t;
+                    sym = s;
+                }
+            }
+
+            if (SCORE[canon] == UNSOLVED)
+                MOVE[code] = (byte) firstFree(code); // not reachable in a legal game
+            else
+                MOVE[code] = (byte) (BEST[canon] < 0 ? -1 : INV[sym][BEST[canon]]);
+        }
+    }
+
+    private PerfectPlay() {
+    }
+
+    static Player newPlayer(char symbol) {
+        UUID id = new UUID(AI_MARKER, ThreadLocalRandom.current().nextLong());
+        return new Player(id, "Computer", symbol);
+    }
+
+    static boolean isAi(Player p) {
+        return p.getUuid().getMostSignificantBits() == AI_MARKER;
+    }
+
+    /**
+     * Best move for whoever is to move on a classic board, as row * 3 + col,
+     * or -1 if the game is over.
+     */
+    static int bestMove(Board board) {
+        int code = 0;
+        for (int i = 0; i < CELLS; i++) {
+            char c = board.symbolAt(i / 3, i % 3);
+            if (c != ' ')
+                code += (c == 'X' ? 1 : 2) * POW3[i];
+        }
+
+        return MOVE[code];
+    }
+
+    private static int firstFree(int code) {
+        for (int i = 0; i < CELLS; i++, code /= 3) {
+            if (code % 3 == 0)
+                return i;
+        }
+        return -1;
+    }
+
+    // Number of solved (canonical) positions
+    static int positions() {
+        int n = 0;
+        for (byte s : SCORE)
+            if (s != UNSOLVED) n++;
+        return n;
+    }
+
+    // -------------------------------------------------------
+    // Solver
+    // -------------------------------------------------------
+
+    // Score of a canonical position for the side to move: 10 - moves played for
+    // a win (sooner is better), the negative for a loss, 0 for a draw
+    private static int negamax(int canon) {
+        if (SCORE[canon] != UNSOLVED)
+            return SCORE[canon];
+
+        int[] cells = decode(canon);
+        int filled = 0;
+        for (int v : cells)
+            if (v != 0) filled++;
+
+        // The previous move may have ended the game
+        int last = (filled % 2 == 1) ? 1 : 2;
+        int score;
+        int best = -1;
+
+        if (hasLine(cells, last)) {
+            score = -(10 - filled);
+        } else if (filled == CELLS) {
+            score = 0;
+        } else {
+            int me = 3 - last;
+            score = Integer.MIN_VALUE;
+
+            for (int i = 0; i < CELLS; i++) {
+                if (cells[i] != 0)
+                    continue;
+
+                int child = canonical(canon + me * POW3[i]);
+                int s = -negamax(child);
+                if (s > score) {
+                    score = s;
+                    best = i;
+                }
+            }
+        }
+
+        SCORE[canon] = (byte) score;
+        BEST[canon] = (byte) best;
+        return score;
+    }
+
+    private static int canonical(int code) {
+        int min = code;
+        for (int s = 1; s < 8; s++)
+            min = Math.min(min, transform(code, s));
+        return min;
+    }
+
+    private static int transform(int code, int sym) {
+        int t = 0;
+        int[] to = SYM[sym];
+        for (int i = 0; i < CELLS; i++) {
+            t += (code % 3) * POW3[to[i]];
+            code /= 3;
+        }
+        return t;
+    }
+
+    private static int[] decode(int code) {
+        int[] cells = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] = code % 3;
+            code /= 3;
+        }
+        return cells;
+    }
+
+    private static boolean hasLine(int[] cells, int who) {
+        for (int[] l : LINES) {
+            if (cells[l[0]] == who && cells[l[1]] == who && cells[l[2]] == who)
+                return true;
+        }
+        return false;
+    }
+}
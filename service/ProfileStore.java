@@ -0,0 +1,202 @@
+package service;
+
+import model.PlayerProfile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Player profiles (Elo rating and win/loss/draw record) by player name.
+ *
+ * Kept in memory; with a file attached it is loaded once and rewritten
+ * (to a temp file, then renamed) by {@link #save()} when something changed.
+ *
+ * There is no store-wide lock: each profile guards itself, a result locks
+ * just the two profiles involved, and save() copies them one by one and
+ * writes the copy without holding anything.
+ */
+class ProfileStore {
+
+    static final int INITIAL_RATING = 1200;
+
+    // Elo K-factor: how far a single game moves a rating
+    private static final double K = 32;
+
+    private static final int FILE_MAGIC = 0x50524f46; // "PROF"
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+    private volatile Path file;
+    private volatile boolean dirty;
+    private final Object saveLock = new Object();
+
+    // Guarded by its own monitor
+    private static final class Profile {
+        double rating = INITIAL_RATING;
+        int wins;
+        int losses;
+        int draws;
+
+        synchronized PlayerProfile copy(String name) {
+            return new PlayerProfile(name, (int) Math.round(rating), wins, losses, draws);
+        }
+    }
+
+    // Rating of a player, INITIAL_RATING if unknown
+    int rating(String name) {
+        Profile p = profiles.get(name);
+        if (p == null)
+            return INITIAL_RATING;
+
+        synchronized (p) {
+            return (int) Math.round(p.rating);
+        }
+    }
+
+    PlayerProfile profile(String name) {
+        Profile p = profiles.get(name);
+        if (p == null)
+            return new PlayerProfile(name, INITIAL_RATING, 0, 0, 0);
+
+        return p.copy(name);
+    }
+
+    // A finished game; scoreA is 1 if a won, 0 if b won, 0.5 for a draw
+    void recordResult(String a, String b, double scoreA) {
+        if (a.equals(b))
+            return; // playing yourself proves nothing
+
+        Profile pa = profiles.computeIfAbsent(a, n -> new Profile());
+        Profile pb = profiles.computeIfAbsent(b, n -> new Profile());
+
+        // Both profiles, always in name order so two results never deadlock
+        boolean aFirst = a.compareTo(b) < 0;
+        synchronized (aFirst ? pa : pb) {
+            synchronized (aFirst ? pb : pa) {
+                update(pa, pb, scoreA);
+            }
+        }
+        dirty = true;
+    }
+
+    // Must be called holding both profiles' monitors
+    private static void update(Profile pa, Profile pb, double scoreA) {
+        double expectedA = 1 / (1 + Math.pow(10, (pb.rating - pa.rating) / 400));
+
+        pa.rating += K * (scoreA - expectedA);
+        pb.rating += K * ((1 - scoreA) - (1 - expectedA));
+
+        if (scoreA == 1) {
+            pa.wins++;
+            pb.losses++;
+        } else if (scoreA == 0) {
+            pa.losses++;
+            pb.wins++;
+        } else {
+            pa.draws++;
+            pb.draws++;
+        }
+    }
+
+    // -------------------------------------------------------
+    // Persistence
+    // -------------------------------------------------------
+    // Called once at startup, before any game is played
+    int load(Path file) throws IOException {
+        this.file = file;
+
+        if (!Files.exists(file))
+            return 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC)
+                throw new IOException("Not a profile file: " + file);
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                Profile p = new Profile();
+                p.rating = in.readDouble();
+                p.wins = in.readInt();
+                p.losses = in.readInt();
+                p.draws = in.readInt();
+                profiles.put(name, p);
+            }
+            return count;
+        }
+    }
+
+    // Writes the profiles out if anything changed since the last save. Saves
+    // take turns on their own lock, games never wait for one.
+    void save() throws IOException {
+        synchronized (saveLock) {
+            saveCopy();
+        }
+    }
+
+    private void saveCopy() throws IOException {
+        Path target = file;
+        if (target == null || !dirty)
+            return;
+
+        // Cleared first: a result recorded while we copy marks it again
+        dirty = false;
+
+        List<Saved> copy = new ArrayList<>(profiles.size());
+        for (Map.Entry<String, Profile> e : profiles.entrySet()) {
+            Profile p = e.getValue();
+            synchronized (p) {
+                copy.add(new Saved(e.getKey(), p.rating, p.wins, p.losses, p.draws));
+            }
+        }
+
+        try {
+            write(target, copy);
+        } catch (IOException ex) {
+            dirty = true; // try again next time
+            throw ex;
+        }
+    }
+
+    private static void write(Path target, List<Saved> copy) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(copy.size());
+            for (Saved s : copy) {
+                out.writeUTF(s.name);
+                out.writeDouble(s.rating);
+                out.writeInt(s.wins);
+                out.writeInt(s.losses);
+                out.writeInt(s.draws);
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // A profile as it was when save() copied it
+    private static final class Saved {
+        final String name;
+        final double rating;
+        final int wins;
+        final int losses;
+        final int draws;
+
+        Saved(String name, double rating, int wins, int losses, int draws) {
+            this.name = name;
+            this.rating = rating;
+            this.wins = wins;
+            this.losses = losses;
+            this.draws = draws;
+        }
+    }
+}
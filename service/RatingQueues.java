@@ -0,0 +1,115 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Matchmaking queues of games waiting for a second player, bucketed by the
+ * creator's rating.
+ *
+ * A newcomer looks at its own bucket first and then at the neighbouring ones,
+ * closest first, so the cost of a pairing depends on the width of the search
+ * window and not on how many players are queued. A waiting game accepts an
+ * opponent within {@code game.match.window} rating points, widened by
+ * {@code game.match.widenPerSec} for every second it has waited (up to
+ * {@code game.match.maxWindow}), so nobody waits forever for a perfect match.
+ */
+class RatingQueues {
+
+    private static final int BUCKET_WIDTH = 50;
+    private static final int MAX_RATING = 3000;
+    private static final int BUCKETS = MAX_RATING / BUCKET_WIDTH + 1;
+
+    private static final int WINDOW = Integer.getInteger("game.match.window", 100);
+    private static final int WIDEN_PER_SEC = Integer.getInteger("game.match.widenPerSec", 50);
+    private static final int MAX_WINDOW = Integer.getInteger("game.match.maxWindow", 400);
+
+    // Waiting games looked at per bucket, so a bucket full of near misses
+    // cannot make a single poll expensive
+    private static final int SCAN_PER_BUCKET = 8;
+
+    private final List<Queue<GameEntry>> buckets = new ArrayList<>(BUCKETS);
+
+    // Queued entries over all buckets, stale ones included
+    private final LongAdder depth = new LongAdder();
+
+    RatingQueues() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets.add(new ConcurrentLinkedQueue<>());
+    }
+
+    static int bucket(int rating) {
+        return Math.max(0, Math.min(BUCKETS - 1, rating / BUCKET_WIDTH));
+    }
+
+    // Rating distance a game that started waiting at the given time accepts
+    static int window(long waitingSince, long now) {
+        long widened = WINDOW + WIDEN_PER_SEC * Math.max(0, now - waitingSince) / 1000;
+        return (int) Math.min(MAX_WINDOW, widened);
+    }
+
+    void offer(GameEntry e, int rating) {
+        e.queued(rating);
+        buckets.get(bucket(rating)).offer(e);
+        depth.increment();
+    }
+
+    /**
+     * Claims the waiting game that suits a player with the given rating best:
+     * closest bucket first, oldest first within a bucket. Entries that are no
+     * longer live are dropped on the way. Returns null if nobody fits.
+     */
+    GameEntry poll(int rating, Predicate<GameEntry> live) {
+        long now = System.currentTimeMillis();
+        int home = bucket(rating);
+
+        // Buckets further away than the widest window can never match
+        int reach = MAX_WINDOW / BUCKET_WIDTH + 1;
+
+        for (int d = 0; d <= reach; d++) {
+            GameEntry e = pollBucket(home - d, rating, now, live);
+            if (e == null && d > 0)
+                e = pollBucket(home + d, rating, now, live);
+            if (e != null)
+                return e;
+        }
+        return null;
+    }
+
+    private GameEntry pollBucket(int b, int rating, long now, Predicate<GameEntry> live) {
+        if (b < 0 || b >= BUCKETS)
+            return null;
+
+        Queue<GameEntry> q = buckets.get(b);
+        Iterator<GameEntry> it = q.iterator();
+
+        for (int seen = 0; seen < SCAN_PER_BUCKET && it.hasNext(); seen++) {
+            GameEntry e = it.next();
+
+            if (!live.test(e)) {
+                if (q.remove(e))
+                    depth.decrement();
+                continue;
+            }
+
+            if (Math.abs(e.waitRating() - rating) > window(e.waitingSince(), now))
+                continue;
+
+            // Whoever removes it owns it; a concurrent poll may have won
+            if (q.remove(e)) {
+                depth.decrement();
+                return e;
+            }
+        }
+        return null;
+    }
+
+    int depth() {
+        return depth.intValue();
+    }
+}
@@ -0,0 +1,35 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids from a global counter, written in base 36 ("1", "2", ... "ZZ", ...).
+ * Allocation is a single atomic increment and never runs out, so this is the
+ * allocator for millions of live games. Ids are never reused.
+ */
+class SequenceIdAllocator implements GameIdAllocator {
+
+    private final AtomicLong next = new AtomicLong(1);
+
+    @Override
+    public String allocate() {
+        return Long.toString(next.getAndIncrement(), 36).toUpperCase();
+    }
+
+    @Override
+    public void release(String gameId) {
+        // nothing to do, ids are not reused
+    }
+
+    // Continue after the highest restored id
+    @Override
+    public void reserve(String gameId) {
+        long id;
+        try {
+            id = Long.parseLong(gameId, 36);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+}
@@ -0,0 +1,104 @@
+package service;
+
+import java.util.Random;
+
+/**
+ * Short, human-typable numeric ids from a fixed range.
+ *
+ * All free ids sit in a shuffled ring buffer: allocate takes from the head and
+ * release appends to the tail, both O(1). Released ids go to the back of the
+ * line, so an id is reused as late as possible.
+ *
+ * Reserved ids stay in the ring and are flagged instead; allocate() drops a
+ * flagged id when it reaches the head, release() only clears the flag if the
+ * id never left the ring.
+ */
+class ShortIdAllocator implements GameIdAllocator {
+
+    private final int min;
+    private final int max;
+
+    private final int[] free;
+    private final boolean[] reserved;
+    private int head;
+    private int count;
+
+    ShortIdAllocator(int min, int max) {
+        if (min < 0 || max < min)
+            throw new IllegalArgumentException("Invalid id range " + min + ".." + max);
+
+        this.min = min;
+        this.max = max;
+        this.free = new int[max - min + 1];
+        this.reserved = new boolean[free.length];
+
+        for (int i = 0; i < free.length; i++)
+            free[i] = min + i;
+
+        // Shuffle so consecutive games don't get guessable ids
+        Random random = new Random();
+        for (int i = free.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = free[i];
+            free[i] = free[j];
+            free[j] = tmp;
+        }
+
+        count = free.length;
+    }
+
+    @Override
+    public synchronized String allocate() {
+        while (count > 0) {
+            int id = free[head];
+            head = (head + 1) % free.length;
+            count--;
+
+            // Taken by a restored game, it comes back through release()
+            if (reserved[id - min]) {
+                reserved[id - min] = false;
+                continue;
+            }
+
+            return String.valueOf(id);
+        }
+
+        throw new IllegalStateException("No free game ids");
+    }
+
+    @Override
+    public synchronized void release(String gameId) {
+        int id;
+        try {
+            id = Integer.parseInt(gameId);
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        if (id < min || id > max)
+            return;
+
+        // Still in the ring, reserved but never allocated
+        if (reserved[id - min]) {
+            reserved[id - min] = false;
+            return;
+        }
+
+        if (count == free.length)
+            return;
+
+        free[(head + count) % free.length] = id;
+        count++;
+    }
+
+    @Override
+    public synchronized void reserve(String gameId) {
+        try {
+            int id = Integer.parseInt(gameId);
+            if (id >= min && id <= max)
+                reserved[id - min] = true;
+        } catch (NumberFormatException ignored) {
+            // not from this range, nothing to reserve
+        }
+    }
+}
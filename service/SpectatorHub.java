@@ -0,0 +1,289 @@
+package service;
+
+import model.GameState;
+import model.MoveResult;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fan-out of game changes to spectators.
+ *
+ * Each watched game has one broadcast ring: a move is stored there once, as a
+ * single shared MoveResult, no matter how many watchers there are. Every
+ * watcher only keeps a cursor into the ring. Publishing is O(1) for the player
+ * who moved; waking the watchers and the remote calls happen on a separate
+ * pool, with at most one delivery in flight per watcher, so consecutive moves
+ * go out in one call.
+ *
+ * A watcher that falls a ring behind gets a snapshot instead of the moves it
+ * missed. One whose calls keep being slow is dropped. A call that hangs (a
+ * client that stopped reading) is given up on after a timeout: the watcher is
+ * dropped and the thread making the call is abandoned, so a delivery thread
+ * is never held for longer than that. Players never wait for spectators.
+ */
+class SpectatorHub {
+
+    private static final int RING_SIZE = 64; // power of two
+    private static final int MASK = RING_SIZE - 1;
+
+    private static final int THREADS =
+            Integer.getInteger("game.spectate.threads", 16);
+    private static final int MAX_PER_GAME =
+            Integer.getInteger("game.spectate.maxPerGame", 10_000);
+    private static final long SLOW_MS =
+            Long.getLong("game.spectate.slowMs", 1000);
+    private static final long CALL_TIMEOUT_MS =
+            Long.getLong("game.spectate.callTimeoutMs", 5000);
+
+    // Slow calls in a row before a watcher is dropped
+    private static final int MAX_STRIKES = 3;
+
+    private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    // Runs the remote calls themselves, so a hung one can be abandoned
+    private final ExecutorService calls = VirtualThreads.newPerTaskExecutor("spectate-call");
+
+    SpectatorHub() {
+        AtomicInteger count = new AtomicInteger();
+        // Unbounded queue, but each watcher has at most one task queued
+        executor = new ThreadPoolExecutor(
+                THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "spectate-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    void close() {
+        executor.shutdownNow();
+        calls.shutdownNow();
+    }
+
+    // Must be called while holding the game's monitor, so no move is missed
+    // or delivered twice between the state the caller returns and the cursor
+    void watch(GameEntry e, SpectatorListener listener) throws RemoteException {
+        Feed f = feeds.computeIfAbsent(e.gameId(), id -> new Feed(e));
+
+        if (f.watchers.size() >= MAX_PER_GAME)
+            throw new RemoteException("Too many spectators");
+
+        f.watchers.add(new Watcher(f, listener, f.head));
+    }
+
+    void unwatch(String gameId, SpectatorListener listener) {
+        Feed f = feeds.get(gameId);
+        if (f != null)
+            f.watchers.removeIf(w -> w.listener.equals(listener));
+    }
+
+    void clear(String gameId) {
+        feeds.remove(gameId);
+    }
+
+    // Must be called while holding the game's monitor (one writer per ring)
+    void moved(String gameId, MoveResult result) {
+        Feed f = feeds.get(gameId);
+        if (f != null)
+            f.append(result);
+    }
+
+    // Must be called while holding the game's monitor. Something other than a
+    // move changed (a player joined): watchers get a snapshot.
+    void changed(String gameId) {
+        moved(gameId, null);
+    }
+
+    int watchers(String gameId) {
+        Feed f = feeds.get(gameId);
+        return f == null ? 0 : f.watchers.size();
+    }
+
+    // -------------------------------------------------------
+    // Broadcast ring of one game
+    // -------------------------------------------------------
+    private final class Feed {
+        final GameEntry game;
+
+        // null entries mean "send a snapshot"
+        final AtomicReferenceArray<MoveResult> ring = new AtomicReferenceArray<>(RING_SIZE);
+
+        // Number of entries ever appended; ring[seq & MASK] holds entry seq.
+        // Entry seq is overwritten while head == seq + RING_SIZE, so a reader
+        // can only trust entries with head - seq < RING_SIZE.
+        volatile long head;
+
+        final List<Watcher> watchers = new CopyOnWriteArrayList<>();
+        final AtomicBoolean wakeQueued = new AtomicBoolean();
+
+        Feed(GameEntry game) {
+            this.game = game;
+        }
+
+        void append(MoveResult r) {
+            long h = head;
+            ring.set((int) (h & MASK), r);
+            head = h + 1;
+
+            if (!watchers.isEmpty() && wakeQueued.compareAndSet(false, true))
+                executor.execute(this::wakeAll);
+        }
+
+        private void wakeAll() {
+            wakeQueued.set(false);
+            for (Watcher w : watchers)
+                w.wake();
+        }
+    }
+
+    // -------------------------------------------------------
+    // One spectator: a cursor plus its delivery task
+    // -------------------------------------------------------
+    private final class Watcher implements Runnable {
+        final Feed feed;
+        final SpectatorListener listener;
+
+        // Next entry to deliver; only touched by the running delivery
+        long cursor;
+        int strikes;
+
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Watcher(Feed feed, SpectatorListener listener, long cursor) {
+            this.feed = feed;
+            this.listener = listener;
+            this.cursor = cursor;
+        }
+
+        void wake() {
+            if (scheduled.compareAndSet(false, true))
+                executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    long h = feed.head;
+
+                    if (cursor >= h) {
+                        scheduled.set(false);
+
+                        // A move may have landed after we looked
+                        if (feed.head == h || !scheduled.compareAndSet(false, true))
+                            return;
+                        continue;
+                    }
+
+                    if (!deliver(h)) {
+                        feed.watchers.remove(this);
+                        return;
+                    }
+                }
+            } catch (RemoteException | RuntimeException gone) {
+                // Gone, or its callback failed: either way, stop pushing to it
+                feed.watchers.remove(this);
+            }
+        }
+
+        // Sends entries [cursor, h); false if the watcher should be dropped
+        private boolean deliver(long h) throws RemoteException {
+            MoveResult[] batch = null;
+            boolean lapped = h - cursor >= RING_SIZE;
+
+            if (!lapped) {
+                batch = new MoveResult[(int) (h - cursor)];
+                for (long s = cursor; s < h; s++) {
+                    MoveResult r = feed.ring.get((int) (s & MASK));
+                    if (r == null) {
+                        batch = null;
+                        break;
+                    }
+                    batch[(int) (s - cursor)] = r;
+                }
+
+                // Overwritten by the writer while we were copying
+                if (feed.head - cursor >= RING_SIZE)
+                    lapped = true;
+            }
+
+            long start = System.currentTimeMillis();
+            boolean sent;
+
+            if (lapped || batch == null) {
+                // Read together under the game's monitor (appends happen
+                // there, after the snapshot is published), so no move the
+                // snapshot already holds is sent again after it
+                GameState snapshot;
+                synchronized (feed.game.state) {
+                    h = feed.head;
+                    snapshot = feed.game.snapshot();
+                }
+                sent = call(snapshot, null);
+            } else {
+                sent = call(null, batch);
+            }
+            if (!sent)
+                return false;
+
+            cursor = h;
+
+            // Lapping alone is not held against the watcher: it can also mean
+            // the delivery pool is busy, and the snapshot already catches up
+            boolean slow = System.currentTimeMillis() - start > SLOW_MS;
+            strikes = slow ? strikes + 1 : 0;
+
+            return strikes < MAX_STRIKES;
+        }
+
+        // One remote call, the snapshot or else the batch, bounded by
+        // CALL_TIMEOUT_MS; false if it hung
+        private boolean call(GameState snapshot, MoveResult[] batch) throws RemoteException {
+            Future<?> call = calls.submit(() -> {
+                if (snapshot != null)
+                    listener.onSnapshot(snapshot);
+                else
+                    listener.onMoves(feed.game.gameId(), new ArrayList<>(Arrays.asList(batch)));
+                return null;
+            });
+
+            try {
+                call.get(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException hung) {
+                // Interrupting rarely unblocks a socket read; the thread is
+                // left to finish or fail on its own
+                call.cancel(true);
+                return false;
+            } catch (InterruptedException closing) {
+                Thread.currentThread().interrupt();
+                call.cancel(true);
+                return false;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RemoteException)
+                    throw (RemoteException) e.getCause();
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new RemoteException("Spectator callback failed", e.getCause());
+            }
+        }
+    }
+}
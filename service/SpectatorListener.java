@@ -0,0 +1,23 @@
+package service;
+
+import model.GameState;
+import model.MoveResult;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * Callback exported by a spectator and registered through
+ * {@link GameService#watchGame(String, SpectatorListener)}. Calls for one
+ * watcher never overlap and arrive in order.
+ */
+public interface SpectatorListener extends Remote {
+
+    // Moves made since the previous call, oldest first
+    void onMoves(String gameId, List<MoveResult> moves) throws RemoteException;
+
+    // The whole game instead of single moves: after a player joined, or when
+    // this watcher fell so far behind that the moves in between were dropped
+    void onSnapshot(GameState state) throws RemoteException;
+}
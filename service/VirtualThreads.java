@@ -0,0 +1,49 @@
+package service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-per-task executors that use virtual threads when the JVM has them
+ * (Java 21+) and fall back to daemon platform threads otherwise. The sources
+ * still compile for Java 17, so the virtual-thread factory is looked up
+ * reflectively.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean available() {
+        return virtualExecutorFactory() != null;
+    }
+
+    public static ExecutorService newPerTaskExecutor(String name) {
+        Method factory = virtualExecutorFactory();
+
+        if (factory != null) {
+            try {
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException ignored) {
+                // fall through to platform threads
+            }
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static Method virtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}